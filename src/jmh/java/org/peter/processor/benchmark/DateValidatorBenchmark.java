@@ -0,0 +1,62 @@
+package org.peter.processor.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.peter.processor.service.DateValidator;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous per-row date check (a new formatter per call and exception-driven rejection) with
+ * {@link DateValidator}, on a mix of repeated valid dates and a few invalid ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateValidatorBenchmark {
+
+    @Param({"yyyyMMdd", "yyyy-MM-dd", "dd MMM yyyy"})
+    private String dateFormat;
+
+    private String[] dates;
+    private DateValidator dateValidator;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateFormat);
+        dates = new String[64];
+        for (int i = 0; i < dates.length; i++) {
+            // Trade files repeat a handful of dates; every eighth row is invalid
+            dates[i] = i % 8 == 7 ? "invalid-date" : formatter.format(LocalDate.of(2024, 1, 1).plusDays(i % 5));
+        }
+        dateValidator = new DateValidator(dateFormat);
+    }
+
+    @Benchmark
+    public boolean formatterPerCall() {
+        String date = nextDate();
+        try {
+            LocalDate.parse(date, DateTimeFormatter.ofPattern(dateFormat));
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean dateValidator() {
+        return dateValidator.isValid(nextDate());
+    }
+
+    private String nextDate() {
+        String date = dates[index];
+        index = (index + 1) & (dates.length - 1);
+        return date;
+    }
+}
@@ -0,0 +1,92 @@
+package org.peter.processor.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.io.exporter.CsvTradeExporter;
+import org.peter.processor.io.importer.CsvTradeImporter;
+import org.peter.processor.io.importer.RowIssueListener;
+import org.peter.processor.model.Trade;
+import org.peter.processor.service.DateValidator;
+import org.peter.processor.service.ExecutionMode;
+import org.peter.processor.service.ProcessingExecutor;
+import org.peter.processor.service.RejectionReport;
+import org.peter.processor.service.TradeEnricher;
+import org.peter.processor.service.TradeMetrics;
+import org.peter.processor.service.TradeProcessor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch enrichment against {@link StubProductCatalog}: a single batch through {@link TradeEnricher}, and a whole
+ * CSV input through {@link TradeProcessor} with the shared processing executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnrichmentBenchmark {
+    private static final String CSV_MIME_TYPE = ProcessType.CSV.getType();
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"0.0", "0.05"})
+    private double invalidRatio;
+
+    @Param({"10000"})
+    private int batchSize;
+
+    @Param({"4"})
+    private int threadCount;
+
+    private StubProductCatalog productCatalog;
+    private TradeEnricher tradeEnricher;
+    private ProcessingExecutor processingExecutor;
+    private TradeProcessor tradeProcessor;
+    private List<Trade> batch;
+    private byte[] csvInput;
+
+    @Setup
+    public void setUp() {
+        List<String[]> generatedRows = TradeDataGenerator.rows(rows, invalidRatio);
+        csvInput = TradeDataGenerator.encode(generatedRows, ProcessType.CSV);
+
+        batch = new ArrayList<>(batchSize);
+        for (String[] row : generatedRows.subList(0, Math.min(batchSize, generatedRows.size()))) {
+            batch.add(Trade.of(row[0], row[1], row[2], row[3]));
+        }
+
+        productCatalog = new StubProductCatalog();
+        tradeEnricher = new TradeEnricher(new DateValidator(TradeDataGenerator.DATE_FORMAT));
+        processingExecutor = new ProcessingExecutor(threadCount, 100, 1, ExecutionMode.PLATFORM, new SimpleMeterRegistry());
+        tradeProcessor = new TradeProcessor(productCatalog, tradeEnricher, processingExecutor,
+                new TradeMetrics(new SimpleMeterRegistry()),
+                List.of(new CsvTradeExporter()), List.of(new CsvTradeImporter()));
+        ReflectionTestUtils.setField(tradeProcessor, "batchSize", batchSize);
+        ReflectionTestUtils.setField(tradeProcessor, "maxInFlightBatches", threadCount * 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        processingExecutor.shutdown();
+    }
+
+    @Benchmark
+    public List<Trade> enrichBatch() {
+        return tradeEnricher.enrich(batch, productCatalog.findProductNames(batch), RowIssueListener.NONE);
+    }
+
+    @Benchmark
+    public void processCsv() {
+        tradeProcessor.processTrades(new ByteArrayInputStream(csvInput), CSV_MIME_TYPE, CSV_MIME_TYPE,
+                OutputStream.nullOutputStream(), new RejectionReport(5));
+    }
+}
@@ -0,0 +1,70 @@
+package org.peter.processor.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.io.exporter.ArrowTradeExporter;
+import org.peter.processor.io.exporter.BinaryTradeExporter;
+import org.peter.processor.io.exporter.CsvTradeExporter;
+import org.peter.processor.io.exporter.ExportSession;
+import org.peter.processor.io.exporter.JsonTradeExporter;
+import org.peter.processor.io.exporter.NdjsonTradeExporter;
+import org.peter.processor.io.exporter.TradeExporter;
+import org.peter.processor.io.exporter.XmlTradeExporter;
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes generated, enriched trades with each exporter into a discarding stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED") // For the Arrow exporter
+public class ExporterBenchmark {
+
+    @Param({"CSV", "JSON", "NDJSON", "XML", "ARROW", "BINARY"})
+    private ProcessType format;
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"10000"})
+    private int batchSize;
+
+    private TradeExporter exporter;
+    private List<List<Trade>> batches;
+
+    @Setup
+    public void setUp() {
+        exporter = switch (format) {
+            case CSV -> new CsvTradeExporter();
+            case JSON -> new JsonTradeExporter();
+            case NDJSON -> new NdjsonTradeExporter();
+            case XML -> new XmlTradeExporter(false);
+            case ARROW -> new ArrowTradeExporter(TradeDataGenerator.DATE_FORMAT);
+            case BINARY -> new BinaryTradeExporter();
+        };
+        List<Trade> trades = TradeDataGenerator.enrichedTrades(rows);
+        batches = new ArrayList<>();
+        for (int from = 0; from < trades.size(); from += batchSize) {
+            batches.add(trades.subList(from, Math.min(from + batchSize, trades.size())));
+        }
+    }
+
+    @Benchmark
+    public void export() throws IOException {
+        try (ExportSession session = exporter.begin(OutputStream.nullOutputStream())) {
+            for (List<Trade> batch : batches) {
+                session.writeBatch(batch);
+            }
+            session.end();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.peter.processor.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.io.importer.BinaryTradeImporter;
+import org.peter.processor.io.importer.CsvTradeImporter;
+import org.peter.processor.io.importer.JsonTradeImporter;
+import org.peter.processor.io.importer.NdjsonTradeImporter;
+import org.peter.processor.io.importer.TradeImporter;
+import org.peter.processor.io.importer.XmlTradeImporter;
+import org.peter.processor.model.Trade;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Parses a generated input with each importer, from memory and from a file (where the CSV and NDJSON importers
+ * split the file into chunks parsed in parallel; the XML importer cuts either input into chunks while reading it).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImporterBenchmark {
+
+    @Param({"CSV", "JSON", "NDJSON", "XML", "BINARY"})
+    private ProcessType format;
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"0.0", "0.05"})
+    private double invalidRatio;
+
+    private TradeImporter importer;
+    private byte[] input;
+    private Path inputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        importer = switch (format) {
+            case CSV -> new CsvTradeImporter();
+            case JSON -> new JsonTradeImporter();
+            case NDJSON -> new NdjsonTradeImporter();
+            case XML -> new XmlTradeImporter();
+            case BINARY -> new BinaryTradeImporter();
+            case ARROW -> throw new IllegalArgumentException("Export only format: " + format);
+        };
+        input = TradeDataGenerator.encode(TradeDataGenerator.rows(rows, invalidRatio), format);
+        inputFile = Files.createTempFile("trades-", "." + format.name().toLowerCase());
+        Files.write(inputFile, input);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(inputFile);
+    }
+
+    @Benchmark
+    public long importStream() {
+        try (Stream<Trade> trades = importer.importData(new ByteArrayInputStream(input))) {
+            return consume(trades);
+        }
+    }
+
+    @Benchmark
+    public long importFile() {
+        try (Stream<Trade> trades = importer.importData(inputFile)) {
+            return consume(trades);
+        }
+    }
+
+    /**
+     * Touches every trade so that nothing is skipped, also when the stream is parallel.
+     */
+    private static long consume(Stream<Trade> trades) {
+        return trades.mapToLong(Trade::getProductId).sum();
+    }
+}
@@ -0,0 +1,30 @@
+package org.peter.processor.benchmark;
+
+import org.peter.processor.model.Trade;
+import org.peter.processor.service.catalog.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory catalogue of the products produced by {@link TradeDataGenerator}, standing in for Redis.
+ */
+public class StubProductCatalog implements ProductCatalog {
+    private final String[] names = new String[TradeDataGenerator.PRODUCT_COUNT];
+
+    public StubProductCatalog() {
+        for (int i = 0; i < names.length; i++) {
+            names[i] = TradeDataGenerator.productName(i);
+        }
+    }
+
+    @Override
+    public List<String> findProductNames(List<Trade> trades) {
+        List<String> productNames = new ArrayList<>(trades.size());
+        for (Trade trade : trades) {
+            int productId = trade.getProductId();
+            productNames.add(productId >= 0 && productId < names.length ? names[productId] : null);
+        }
+        return productNames;
+    }
+}
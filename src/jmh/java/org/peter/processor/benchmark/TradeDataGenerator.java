@@ -0,0 +1,139 @@
+package org.peter.processor.benchmark;
+
+import org.peter.processor.io.BinaryTradeFormat;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic trade data for the benchmarks.
+ * <p>
+ * A share of the rows given by {@code invalidRatio} is invalid, alternating between an unparseable date and a
+ * product id that is not in the catalogue, so that the rejection paths are exercised in every format.
+ */
+public final class TradeDataGenerator {
+    public static final int PRODUCT_COUNT = 10_000;
+    public static final String DATE_FORMAT = "yyyyMMdd";
+
+    private static final long SEED = 42;
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CHF"};
+
+    private TradeDataGenerator() {
+    }
+
+    /**
+     * @return rows of {@code date, productId, currency, price}
+     */
+    public static List<String[]> rows(int rowCount, double invalidRatio) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_FORMAT);
+        LocalDate firstDate = LocalDate.of(2024, 1, 1);
+
+        List<String[]> rows = new ArrayList<>(rowCount);
+        int invalidRows = 0;
+        for (int i = 0; i < rowCount; i++) {
+            String date = formatter.format(firstDate.plusDays(random.nextInt(5)));
+            String productId = String.valueOf(random.nextInt(PRODUCT_COUNT));
+            if (random.nextDouble() < invalidRatio) {
+                if (invalidRows++ % 2 == 0) {
+                    date = "2024-13-45";
+                } else {
+                    productId = String.valueOf(PRODUCT_COUNT + random.nextInt(PRODUCT_COUNT));
+                }
+            }
+            String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+            String price = random.nextInt(100_000) + "." + random.nextInt(10) + random.nextInt(10);
+            rows.add(new String[]{date, productId, currency, price});
+        }
+        return rows;
+    }
+
+    /**
+     * Encodes the rows in the input layout the importer of the given type expects.
+     */
+    public static byte[] encode(List<String[]> rows, ProcessType type) {
+        if (type == ProcessType.BINARY) {
+            return encodeBinary(rows);
+        }
+        StringBuilder out = new StringBuilder(rows.size() * 64);
+        switch (type) {
+            case CSV -> {
+                out.append("date,productId,currency,price\n");
+                for (String[] row : rows) {
+                    out.append(row[0]).append(',').append(row[1]).append(',').append(row[2]).append(',').append(row[3]).append('\n');
+                }
+            }
+            case JSON -> {
+                out.append('[');
+                for (int i = 0; i < rows.size(); i++) {
+                    String[] row = rows.get(i);
+                    out.append(i == 0 ? "" : ",")
+                            .append("{\"date\":\"").append(row[0])
+                            .append("\",\"productId\":\"").append(row[1])
+                            .append("\",\"currency\":\"").append(row[2])
+                            .append("\",\"price\":\"").append(row[3]).append("\"}");
+                }
+                out.append(']');
+            }
+            case NDJSON -> {
+                for (String[] row : rows) {
+                    out.append("{\"date\":\"").append(row[0])
+                            .append("\",\"productId\":\"").append(row[1])
+                            .append("\",\"currency\":\"").append(row[2])
+                            .append("\",\"price\":\"").append(row[3]).append("\"}\n");
+                }
+            }
+            case XML -> {
+                out.append("<Trades>");
+                for (String[] row : rows) {
+                    out.append("<Trade><date>").append(row[0])
+                            .append("</date><productId>").append(row[1])
+                            .append("</productId><currency>").append(row[2])
+                            .append("</currency><price>").append(row[3]).append("</price></Trade>");
+                }
+                out.append("</Trades>");
+            }
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeBinary(List<String[]> rows) {
+        BinaryTradeFormat.Encoder encoder = new BinaryTradeFormat.Encoder().header();
+        for (String[] row : rows) {
+            encoder.record(row[0], Integer.parseInt(row[1]), row[2], row[3]);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoder.size());
+        try {
+            encoder.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns enriched trades, as handed to the exporters.
+     */
+    public static List<Trade> enrichedTrades(int rowCount) {
+        List<Trade> trades = new ArrayList<>(rowCount);
+        for (String[] row : rows(rowCount, 0)) {
+            Trade trade = Trade.of(row[0], row[1], row[2], row[3]);
+            trade.setProductName(productName(trade.getProductId()));
+            trades.add(trade);
+        }
+        return trades;
+    }
+
+    public static String productName(int productId) {
+        return "Product " + productId;
+    }
+}
@@ -0,0 +1,38 @@
+package org.peter.processor.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.peter.processor.service.ProductSyncResult;
+import org.peter.processor.service.ProductsLoader;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/catalog")
+@Tag(name = "Catalogue Admin API", description = "Maintenance of the product catalogue in Redis")
+@ConditionalOnProperty(name = "app.catalog.backend", havingValue = "redis", matchIfMissing = true)
+public class CatalogAdminController {
+
+    private final ProductsLoader productsLoader;
+
+    @Operation(
+            summary = "Sync Products",
+            description = "Writes the products of app.products-file that changed since the last sync to Redis and " +
+                    "deletes the ones that were removed, then drops the cached product names. Waits for a load or " +
+                    "sync that is already running."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Counts of the products written and deleted"),
+            @ApiResponse(responseCode = "500", description = "The file could not be read or Redis failed"),
+    })
+    @PostMapping("/sync")
+    public ProductSyncResult sync() {
+        return productsLoader.syncProductsIntoRedis();
+    }
+}
@@ -3,23 +3,33 @@ package org.peter.processor.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.SchemaProperty;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.peter.processor.exception.ExportFormatUnavailableException;
+import org.peter.processor.exception.ProcessingCapacityException;
 import org.peter.processor.exception.UnsupportedFormatException;
+import org.peter.processor.io.Compression;
+import org.peter.processor.io.CountingOutputStream;
+import org.peter.processor.io.DetachableOutputStream;
+import org.peter.processor.io.MultipartStream;
 import org.peter.processor.io.ProcessType;
+import org.peter.processor.service.RejectionReport;
+import org.peter.processor.service.TradeMetrics;
 import org.peter.processor.service.TradeProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
-import java.util.concurrent.CompletableFuture;
+import java.nio.charset.StandardCharsets;
 
 @Slf4j
 @RestController
@@ -27,53 +37,165 @@ import java.util.concurrent.CompletableFuture;
 @RequestMapping("/api/v1")
 @Tag(name = "Trade API", description = "Endpoints for processing and exporting trade data")
 public class TradeController {
+    private static final String RETRY_AFTER_SECONDS = "5";
+    private static final String FILE_PART = "file";
+
+    @Value("${app.rejections.max-samples}")
+    private int maxRejectionSamples;
 
     private final TradeProcessor tradeService;
+    private final TradeMetrics tradeMetrics;
 
     @Operation(
             summary = "Export Enriched Trades",
-            description = "Exports trade data in XML, JSON, or CSV format based on the Accept header."
+            description = "Exports trade data in XML, JSON, NDJSON, CSV, binary or Arrow IPC stream format based on the Accept header. " +
+                    "The trades are read from the 'file' part of a multipart upload or from the raw request body, and " +
+                    "processed as they arrive. The format of the trades is taken from the Content-Type of the part or " +
+                    "body, or is the output format if that names none. Compressed uploads (gzip, deflate, zstd) are decoded according to the Content-Encoding " +
+                    "header or the extension of the uploaded file name, and the result is compressed according to the " +
+                    "Accept-Encoding header. Counts and samples of rejected rows and missing products are sent as " +
+                    "trailers (" + RejectionReport.TRAILER_NAMES + ")."
     )
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+            @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE, schema = @Schema(type = "object"),
+                    schemaProperties = @SchemaProperty(name = FILE_PART, schema = @Schema(type = "string", format = "binary"))),
+            @Content(mediaType = "text/csv", schema = @Schema(type = "string")),
+            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string")),
+            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(type = "string")),
+            @Content(mediaType = MediaType.APPLICATION_XML_VALUE, schema = @Schema(type = "string")),
+            @Content(mediaType = "application/x-trades-binary", schema = @Schema(type = "string", format = "binary"))
+    })
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully exported trades",
                     content = {
                             @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string")),
+                            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(type = "string")),
                             @Content(mediaType = MediaType.APPLICATION_XML_VALUE, schema = @Schema(type = "string")),
-                            @Content(mediaType = "text/csv", schema = @Schema(type = "string"))
+                            @Content(mediaType = "text/csv", schema = @Schema(type = "string")),
+                            @Content(mediaType = "application/vnd.apache.arrow.stream", schema = @Schema(type = "string", format = "binary")),
+                            @Content(mediaType = "application/x-trades-binary", schema = @Schema(type = "string", format = "binary"))
                     }),
             @ApiResponse(responseCode = "400", description = "Bad request"),
+            @ApiResponse(responseCode = "406", description = "The output format cannot be written by this server"),
+            @ApiResponse(responseCode = "415", description = "Unsupported format or content encoding"),
+            @ApiResponse(responseCode = "503", description = "Processing capacity exhausted, retry later"),
     })
     @PostMapping("/process")
     public void exportTrades(
+            HttpServletRequest request,
             HttpServletResponse response,
-            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = "text/csv") String acceptHeader,
-            @RequestParam("file") MultipartFile file
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = "text/csv") String acceptHeader
     ) {
+        String format = ProcessType.fromMimeType(acceptHeader).name().toLowerCase();
         response.setContentType(acceptHeader);
-        response.setHeader("Content-Disposition", "attachment; filename=trades." + ProcessType.fromMimeType(acceptHeader).name().toLowerCase());
-
-        try (InputStream inputStream = file.getInputStream();
-             OutputStream outputStream = response.getOutputStream();
-             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream))) {
+        response.setHeader("Content-Disposition", "attachment; filename=trades." + format);
+        RejectionReport report = new RejectionReport(maxRejectionSamples);
+        sendAsTrailers(report, response);
+        Compression compression = Compression.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compression != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, compression.getEncoding());
+        }
 
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() ->
-                    tradeService.processTrades(inputStream, acceptHeader, writer)
-            );
+        DetachableOutputStream body = null;
+        OutputStream output = null;
+        try (Upload upload = openUpload(request)) {
+            body = new DetachableOutputStream(response.getOutputStream());
+            CountingOutputStream outputStream = new CountingOutputStream(body);
+            output = compression == null ? outputStream : compression.encode(outputStream);
 
-            future.join(); // Wait for all async processing to complete
-            writer.flush();
+            tradeService.processTrades(upload.content(), inputType(upload, acceptHeader), acceptHeader, output, report);
+            output.close(); // Writes the end of the compressed data, so that the count is complete
+            tradeMetrics.exportedBytes(format, outputStream.getCount());
 
+        } catch (ProcessingCapacityException e) {
+            handleErrorResponse(response, HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
         } catch (UnsupportedFormatException e) {
             handleErrorResponse(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getMessage());
+        } catch (ExportFormatUnavailableException e) {
+            handleErrorResponse(response, HttpStatus.NOT_ACCEPTABLE, e.getMessage());
         } catch (Exception e) {
             handleErrorResponse(response, HttpStatus.BAD_REQUEST, "Error processing trades: " + e.getMessage());
+        } finally {
+            release(body, output);
+        }
+    }
+
+    /**
+     * Closes the output of a failed request, e.g. to free a compressor, without touching the error response.
+     * Does nothing once the output has been closed.
+     */
+    private static void release(DetachableOutputStream body, OutputStream output) {
+        if (body == null) {
+            return;
+        }
+        body.detach();
+        try {
+            if (output != null) {
+                output.close();
+            }
+        } catch (IOException e) {
+            log.debug("Error releasing the output: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the {@code file} part of a multipart upload, or the raw body for any other content type. Either way
+     * the trades are read straight from the request as they arrive, nothing is buffered or spooled to disk first.
+     * The body is decoded according to {@code Content-Encoding}, an uploaded file according to its extension.
+     */
+    private Upload openUpload(HttpServletRequest request) throws IOException {
+        InputStream body = Compression.decode(request.getInputStream(), request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        String boundary = MultipartStream.boundaryOf(request.getContentType());
+        if (boundary == null) {
+            return new Upload(body, request.getContentType());
+        }
+        MultipartStream.Part part = new MultipartStream(body, boundary).part(FILE_PART);
+        if (part == null) {
+            throw new IllegalArgumentException("Missing multipart part '" + FILE_PART + "'");
+        }
+        Compression compression = Compression.fromFileName(part.filename());
+        return new Upload(compression == null ? part.content() : compression.decode(part.content()), part.contentType());
+    }
+
+    /**
+     * The format named by the content type of the upload; when it names none (e.g. {@code application/octet-stream})
+     * the trades are expected in the format of the output, as before.
+     */
+    private static String inputType(Upload upload, String acceptHeader) {
+        ProcessType inputType = ProcessType.fromContentType(upload.contentType());
+        return inputType != null ? inputType.getType() : acceptHeader;
+    }
+
+    /**
+     * The trailers are read once the body has been written, so they carry the totals of the whole request.
+     */
+    private void sendAsTrailers(RejectionReport report, HttpServletResponse response) {
+        try {
+            response.setTrailerFields(report::toTrailerFields);
+            response.setHeader("Trailer", RejectionReport.TRAILER_NAMES);
+        } catch (IllegalStateException e) {
+            log.debug("Response trailers not supported: {}", e.getMessage()); // e.g. HTTP/1.0 clients
+        }
+    }
+
+    private record Upload(InputStream content, String contentType) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            content.close();
         }
     }
 
     private void handleErrorResponse(HttpServletResponse response, HttpStatus status, String message) {
+        if (response.isCommitted()) {
+            return; // Part of the output has already been streamed, the client sees a truncated body
+        }
+        response.reset(); // Drops the headers of the trade output, e.g. Content-Encoding
         response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
         try {
-            response.getWriter().write(message);
+            response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8)); // The writer may hold the stream already
         } catch (IOException ex) {
             log.error("Error writing error response", ex);
         }
@@ -0,0 +1,135 @@
+package org.peter.processor.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.peter.processor.exception.InputTooLargeException;
+import org.peter.processor.exception.JobNotFinishedException;
+import org.peter.processor.exception.JobNotFoundException;
+import org.peter.processor.exception.UnsupportedFormatException;
+import org.peter.processor.io.Compression;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.service.job.JobStatus;
+import org.peter.processor.service.job.TradeJobService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/jobs")
+@Tag(name = "Trade Jobs API", description = "Background processing of large trade files")
+public class TradeJobController {
+
+    private final TradeJobService tradeJobService;
+
+    @Operation(
+            summary = "Submit Trade Job",
+            description = "Stores the raw request body and processes it in the background. The Content-Type header " +
+                    "gives the format of the trades; the result has the same format unless resultFormat names another " +
+                    "one, e.g. application/vnd.apache.arrow.stream. Compressed bodies (gzip, deflate, " +
+                    "zstd) are decoded according to the Content-Encoding header before they are stored."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Job queued, see the Location header for its status"),
+            @ApiResponse(responseCode = "413", description = "Input larger than app.jobs.max-input-size"),
+            @ApiResponse(responseCode = "415", description = "Unsupported format or content encoding"),
+    })
+    @PostMapping
+    public ResponseEntity<JobStatus> submit(
+            HttpServletRequest request,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, defaultValue = "text/csv") String contentType,
+            @RequestParam(name = "resultFormat", required = false) String resultFormat
+    ) throws IOException {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        String format = mediaType.getType() + "/" + mediaType.getSubtype(); // Without parameters such as the charset
+        try (InputStream body = Compression.decode(request.getInputStream(), request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            JobStatus status = tradeJobService.submit(body, format, resultFormat != null ? resultFormat : format);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/jobs/" + status.id()))
+                    .body(status);
+        }
+    }
+
+    @Operation(summary = "List Trade Jobs")
+    @GetMapping
+    public List<JobStatus> list() {
+        return tradeJobService.list();
+    }
+
+    @Operation(summary = "Trade Job Status", description = "State and progress (rows parsed, result size) of a job.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job status"),
+            @ApiResponse(responseCode = "404", description = "Unknown job"),
+    })
+    @GetMapping("/{id}")
+    public JobStatus status(@PathVariable("id") String id) {
+        return tradeJobService.status(id);
+    }
+
+    @Operation(summary = "Download Trade Job Result", description = "Supports range requests to resume downloads.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The enriched trades"),
+            @ApiResponse(responseCode = "404", description = "Unknown job"),
+            @ApiResponse(responseCode = "409", description = "Job not finished or failed"),
+    })
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Resource> result(@PathVariable("id") String id) {
+        Resource result = new FileSystemResource(tradeJobService.result(id));
+        String format = tradeJobService.status(id).resultFormat();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=trades." + ProcessType.fromMimeType(format).name().toLowerCase())
+                .body(result);
+    }
+
+    @Operation(summary = "Delete Trade Job", description = "Deletes a finished job and its result.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Job deleted"),
+            @ApiResponse(responseCode = "404", description = "Unknown job"),
+            @ApiResponse(responseCode = "409", description = "Job still queued or running"),
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable("id") String id) throws IOException {
+        tradeJobService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<String> handleNotFound(JobNotFoundException e) {
+        return errorResponse(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(JobNotFinishedException.class)
+    public ResponseEntity<String> handleNotFinished(JobNotFinishedException e) {
+        return errorResponse(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(InputTooLargeException.class)
+    public ResponseEntity<String> handleTooLarge(InputTooLargeException e) {
+        return errorResponse(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+    }
+
+    @ExceptionHandler({UnsupportedFormatException.class, InvalidMediaTypeException.class})
+    public ResponseEntity<String> handleUnsupportedFormat(RuntimeException e) {
+        return errorResponse(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getMessage());
+    }
+
+    private ResponseEntity<String> errorResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status).contentType(MediaType.TEXT_PLAIN).body(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.peter.processor.exception;
+
+/**
+ * The requested output format is supported but cannot be written by this JVM, e.g. because it lacks a required
+ * JVM option.
+ */
+public class ExportFormatUnavailableException extends RuntimeException {
+    public ExportFormatUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package org.peter.processor.exception;
+
+public class InputTooLargeException extends IllegalArgumentException {
+    public InputTooLargeException(String message) {
+        super(message);
+    }
+}
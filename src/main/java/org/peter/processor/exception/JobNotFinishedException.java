@@ -0,0 +1,7 @@
+package org.peter.processor.exception;
+
+public class JobNotFinishedException extends IllegalStateException {
+    public JobNotFinishedException(String message) {
+        super(message);
+    }
+}
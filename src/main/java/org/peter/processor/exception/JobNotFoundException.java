@@ -0,0 +1,9 @@
+package org.peter.processor.exception;
+
+import java.util.NoSuchElementException;
+
+public class JobNotFoundException extends NoSuchElementException {
+    public JobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package org.peter.processor.exception;
+
+import java.util.concurrent.RejectedExecutionException;
+
+public class ProcessingCapacityException extends RejectedExecutionException {
+    public ProcessingCapacityException(String message) {
+        super(message);
+    }
+}
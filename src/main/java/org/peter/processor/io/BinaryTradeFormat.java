@@ -0,0 +1,184 @@
+package org.peter.processor.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The compact binary trade encoding of {@link ProcessType#BINARY}: length-prefixed records with a fixed field
+ * order, so a reader finds every field by its length instead of scanning for delimiters.
+ * <pre>
+ * stream  = "TRDB" version(1) record*
+ * record  = varint(body length) body
+ * body    = text(date) product text(currency) text(price)
+ * product = varint(id &lt;&lt; 1)                         a numeric product id
+ *         | varint(length &lt;&lt; 1 | 1) UTF-8 bytes      a product id (or, in exported files, name) as text
+ * text    = varint(length) UTF-8 bytes
+ * </pre>
+ * Varints are unsigned LEB128: seven bits per byte, least significant group first. Dates and prices stay text,
+ * as in the other formats, since they are validated and passed through as such. A record that cannot be decoded
+ * is skipped by its length.
+ */
+public final class BinaryTradeFormat {
+    public static final byte[] HEADER = {'T', 'R', 'D', 'B', 1};
+    /** Upper bound of the body length, so that readers can hold any record in one buffer. */
+    public static final int MAX_RECORD_BYTES = 1024 * 1024;
+    /** A varint holds up to 35 bits in five bytes. */
+    public static final int MAX_VARINT_BYTES = 5;
+
+    private BinaryTradeFormat() {
+    }
+
+    /**
+     * Encodes records into a reusable buffer, which is handed on with {@link #writeTo(OutputStream)}.
+     */
+    public static final class Encoder {
+        private byte[] buffer = new byte[8192];
+        private int size;
+
+        public Encoder header() {
+            ensureCapacity(HEADER.length);
+            System.arraycopy(HEADER, 0, buffer, size, HEADER.length);
+            size += HEADER.length;
+            return this;
+        }
+
+        /**
+         * Appends a record with a numeric product id.
+         */
+        public Encoder record(String date, int productId, String currency, String price) {
+            if (productId < 0) {
+                throw new IllegalArgumentException("Invalid product id: " + productId);
+            }
+            int start = beginRecord();
+            text(date);
+            varint((long) productId << 1);
+            text(currency);
+            text(price);
+            endRecord(start);
+            return this;
+        }
+
+        /**
+         * Appends a record with a textual product, e.g. the product name of an enriched trade. Missing values are
+         * written as empty text.
+         */
+        public Encoder record(String date, String product, String currency, String price) {
+            int start = beginRecord();
+            text(date);
+            text(product, true);
+            text(currency);
+            text(price);
+            endRecord(start);
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Writes the encoded bytes to the stream and empties the buffer.
+         */
+        public void writeTo(OutputStream output) throws IOException {
+            output.write(buffer, 0, size);
+            size = 0;
+        }
+
+        /**
+         * Leaves room for a one byte length prefix, which fits bodies of up to 127 bytes.
+         */
+        private int beginRecord() {
+            ensureCapacity(1);
+            return size++;
+        }
+
+        private void endRecord(int start) {
+            int bodyLength = size - start - 1;
+            if (bodyLength > MAX_RECORD_BYTES) {
+                size = start;
+                throw new IllegalArgumentException("Trade record of " + bodyLength + " bytes exceeds " + MAX_RECORD_BYTES);
+            }
+            int prefixLength = varintLength(bodyLength);
+            if (prefixLength > 1) {
+                ensureCapacity(prefixLength - 1);
+                System.arraycopy(buffer, start + 1, buffer, start + prefixLength, bodyLength);
+            }
+            size = start;
+            varint(bodyLength);
+            size += bodyLength;
+        }
+
+        private void text(String value) {
+            text(value, false);
+        }
+
+        /**
+         * @param tagged whether the length is shifted left and tagged with a one, as for a textual product
+         */
+        private void text(String value, boolean tagged) {
+            byte[] bytes = utf8(value);
+            long length = bytes != null ? bytes.length : ascii(value).length();
+            varint(tagged ? length << 1 | 1 : length);
+            raw(value, bytes);
+        }
+
+        /**
+         * Returns the UTF-8 bytes of values that are not pure ASCII; ASCII is copied char by char without them.
+         */
+        private static byte[] utf8(String value) {
+            if (value == null) {
+                return null;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) >= 0x80) {
+                    return value.getBytes(StandardCharsets.UTF_8);
+                }
+            }
+            return null;
+        }
+
+        private static String ascii(String value) {
+            return value != null ? value : "";
+        }
+
+        private void raw(String value, byte[] bytes) {
+            if (bytes != null) {
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, size, bytes.length);
+                size += bytes.length;
+                return;
+            }
+            String text = ascii(value);
+            ensureCapacity(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer[size++] = (byte) text.charAt(i);
+            }
+        }
+
+        private void varint(long value) {
+            ensureCapacity(MAX_VARINT_BYTES);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private static int varintLength(int value) {
+            int length = 1;
+            while ((value & ~0x7F) != 0) {
+                value >>>= 7;
+                length++;
+            }
+            return length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
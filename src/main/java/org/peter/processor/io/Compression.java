@@ -0,0 +1,161 @@
+package org.peter.processor.io;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import org.peter.processor.exception.UnsupportedFormatException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP content codings supported for uploads ({@code Content-Encoding}) and results ({@code Accept-Encoding}).
+ * <p>
+ * Both directions are streaming: input is decompressed as the importer reads it, and {@link OutputStream#flush()}
+ * on an encoding stream pushes everything written so far to the client, so enriched batches still arrive as they
+ * are produced.
+ */
+public enum Compression {
+    // In order of preference when the client accepts several codings equally
+    ZSTD("zstd", ".zst"),
+    GZIP("gzip", ".gz"),
+    DEFLATE("deflate", null);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String IDENTITY = "identity";
+
+    private final String encoding;
+    private final String fileExtension;
+
+    Compression(String encoding, String fileExtension) {
+        this.encoding = encoding;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public InputStream decode(InputStream input) throws IOException {
+        return switch (this) {
+            case ZSTD -> new ZstdInputStreamNoFinalizer(input);
+            case GZIP -> new GZIPInputStream(input, BUFFER_SIZE);
+            case DEFLATE -> new InflaterInputStream(input);
+        };
+    }
+
+    /**
+     * Returns a stream that compresses into {@code output}; closing it writes the end of the compressed data
+     * and closes {@code output}.
+     */
+    public OutputStream encode(OutputStream output) throws IOException {
+        return switch (this) {
+            case ZSTD -> new ZstdOutputStreamNoFinalizer(output);
+            case GZIP -> new GZIPOutputStream(output, BUFFER_SIZE, true);
+            case DEFLATE -> new DeflaterOutputStream(output, new Deflater(), BUFFER_SIZE, true);
+        };
+    }
+
+    /**
+     * Decodes {@code input} according to a {@code Content-Encoding} header value.
+     *
+     * @throws UnsupportedFormatException for codings other than the supported ones
+     */
+    public static InputStream decode(InputStream input, String contentEncoding) throws IOException {
+        Compression compression = fromContentEncoding(contentEncoding);
+        return compression == null ? input : compression.decode(input);
+    }
+
+    /**
+     * @return the coding, or {@code null} for an absent header or {@code identity}
+     * @throws UnsupportedFormatException for codings other than the supported ones
+     */
+    public static Compression fromContentEncoding(String contentEncoding) {
+        if (contentEncoding == null || contentEncoding.isBlank()
+                || contentEncoding.trim().equalsIgnoreCase(IDENTITY)) {
+            return null;
+        }
+        String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        for (Compression compression : values()) {
+            if (compression.encoding.equals(coding)) {
+                return compression;
+            }
+        }
+        throw new UnsupportedFormatException("Unsupported content encoding: " + contentEncoding);
+    }
+
+    /**
+     * Guesses the coding of an uploaded file from its name, e.g. {@code trades.csv.gz}.
+     *
+     * @return the coding, or {@code null} if the name has no known compression extension
+     */
+    public static Compression fromFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String name = fileName.toLowerCase(Locale.ROOT);
+        for (Compression compression : values()) {
+            if (compression.fileExtension != null && name.endsWith(compression.fileExtension)) {
+                return compression;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks the coding for a response from an {@code Accept-Encoding} header value: the supported coding with the
+     * highest quality, {@code *} standing for any of them.
+     *
+     * @return the coding, or {@code null} to send the response uncompressed
+     */
+    public static Compression negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        Compression best = null;
+        double bestQuality = 0;
+        double wildcardQuality = 0;
+        double[] qualities = new double[values().length];
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+            for (Compression compression : values()) {
+                if (compression.encoding.equals(coding)) {
+                    qualities[compression.ordinal()] = quality > 0 ? quality : -1; // q=0 rules it out
+                }
+            }
+        }
+        for (Compression compression : values()) {
+            double quality = qualities[compression.ordinal()] == 0 ? wildcardQuality : qualities[compression.ordinal()];
+            if (quality > bestQuality) {
+                best = compression;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String[] nameAndValue = parameters[i].trim().split("=", 2);
+            if (nameAndValue.length == 2 && nameAndValue[0].trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(nameAndValue[1].trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
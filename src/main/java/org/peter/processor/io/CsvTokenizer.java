@@ -0,0 +1,255 @@
+package org.peter.processor.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming CSV tokenizer working directly on UTF-8 bytes.
+ * <p>
+ * Each call to {@link #nextRecord()} splits one record into fields in place; a field is only turned into a
+ * {@link String} (or bytes) when it is asked for. Quoted fields may contain commas, line breaks and escaped
+ * quotes ({@code ""}); unquoted fields are trimmed like {@link String#trim()}.
+ */
+public class CsvTokenizer {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private final ByteBuffer source;
+
+    private byte[] buffer;
+    private int limit;
+    private int position;
+    private boolean eof;
+
+    private int fieldCount;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private boolean[] escaped = new boolean[8];
+    private int recordStart;
+    private int recordEnd;
+
+    public CsvTokenizer(InputStream input) {
+        this(input, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(InputStream input, int bufferSize) {
+        this.input = input;
+        this.source = null;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads the remaining bytes of the given buffer, e.g. a memory-mapped region of a file.
+     */
+    public CsvTokenizer(ByteBuffer source) {
+        this.input = null;
+        this.source = source;
+        this.buffer = new byte[Math.max(1, Math.min(DEFAULT_BUFFER_SIZE, source.remaining()))];
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return {@code false} when the input is exhausted
+     */
+    public boolean nextRecord() {
+        while (true) {
+            if (position >= limit) {
+                if (eof) {
+                    return false;
+                }
+                fill();
+                continue;
+            }
+            if (scanRecord(eof)) {
+                return true;
+            }
+            fill();
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public String field(int index) {
+        checkIndex(index);
+        if (!escaped[index]) {
+            return new String(buffer, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8);
+        }
+        byte[] bytes = unescape(index);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public byte[] fieldBytes(int index) {
+        checkIndex(index);
+        return escaped[index] ? unescape(index) : Arrays.copyOfRange(buffer, starts[index], ends[index]);
+    }
+
+    /**
+     * Parses a field made of at most 9 ASCII digits without leading zeros, without materializing it.
+     *
+     * @return the value, or {@code -1} if the field is anything else
+     */
+    public int unsignedIntField(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        int length = ends[index] - start;
+        if (escaped[index] || length == 0 || length > 9 || (length > 1 && buffer[start] == '0')) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < ends[index]; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the raw text of the current record, for diagnostics.
+     */
+    public String recordText() {
+        return new String(buffer, recordStart, recordEnd - recordStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits the record starting at {@link #position}. Returns {@code false} if the buffer ends before the
+     * record does and more input is available; the record is then scanned again after {@link #fill()}.
+     */
+    private boolean scanRecord(boolean atEof) {
+        int i = position;
+        fieldCount = 0;
+        recordStart = position;
+
+        while (true) {
+            while (i < limit && (buffer[i] == ' ' || buffer[i] == '\t')) {
+                i++;
+            }
+
+            if (i < limit && buffer[i] == '"') {
+                int start = ++i;
+                boolean hasEscapes = false;
+                while (i < limit) {
+                    if (buffer[i] == '"') {
+                        if (i + 1 >= limit && !atEof) {
+                            return false;
+                        }
+                        if (i + 1 < limit && buffer[i + 1] == '"') {
+                            hasEscapes = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                if (i >= limit && !atEof) {
+                    return false;
+                }
+                addField(start, Math.min(i, limit), hasEscapes);
+                while (i < limit && buffer[i] != ',' && buffer[i] != '\n') {
+                    i++; // Ignore anything between the closing quote and the delimiter
+                }
+            } else {
+                int start = i;
+                while (i < limit && buffer[i] != ',' && buffer[i] != '\n') {
+                    i++;
+                }
+                int end = i;
+                while (end > start && (buffer[end - 1] & 0xFF) <= ' ') {
+                    end--;
+                }
+                addField(start, end, false);
+            }
+
+            if (i >= limit) {
+                if (!atEof) {
+                    return false;
+                }
+                recordEnd = limit;
+                position = limit;
+                return true;
+            }
+            if (buffer[i] == '\n') {
+                recordEnd = i > recordStart && buffer[i - 1] == '\r' ? i - 1 : i;
+                position = i + 1;
+                return true;
+            }
+            i++; // Delimiter
+        }
+    }
+
+    private void addField(int start, int end, boolean hasEscapes) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            escaped = Arrays.copyOf(escaped, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = hasEscapes;
+        fieldCount++;
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer, growing it if a single record fills it, and reads more.
+     */
+    private void fill() {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        if (source != null) {
+            int count = Math.min(source.remaining(), buffer.length - limit);
+            if (count == 0) {
+                eof = true;
+            } else {
+                source.get(buffer, limit, count);
+                limit += count;
+            }
+            return;
+        }
+
+        try {
+            int count = input.read(buffer, limit, buffer.length - limit);
+            if (count < 0) {
+                eof = true;
+            } else {
+                limit += count;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] unescape(int index) {
+        byte[] bytes = new byte[ends[index] - starts[index]];
+        int length = 0;
+        for (int i = starts[index]; i < ends[index]; i++) {
+            bytes[length++] = buffer[i];
+            if (buffer[i] == '"') {
+                i++; // Skip the second quote of an escaped pair
+            }
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " out of " + fieldCount);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.peter.processor.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Passes writes and flushes on to the target until {@link #detach()} is called, and discards them afterwards.
+ * <p>
+ * Sits between an encoder and the response: when a request fails the stream is detached, so that closing the
+ * encoder to release it neither appends to nor commits the error response. Closing this stream leaves the target
+ * open.
+ */
+public class DetachableOutputStream extends FilterOutputStream {
+    private volatile boolean detached;
+
+    public DetachableOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    public void detach() {
+        detached = true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!detached) {
+            out.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (!detached) {
+            out.write(bytes, offset, length);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!detached) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush(); // The target belongs to the caller
+    }
+}
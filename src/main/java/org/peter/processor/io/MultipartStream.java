@@ -0,0 +1,277 @@
+package org.peter.processor.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Reads a {@code multipart/form-data} body as it arrives, without buffering or spooling its parts.
+ * <p>
+ * {@link #part(String)} skips ahead to the named part and returns its content as a stream that ends at the next
+ * boundary, so the part can be parsed while the rest of the upload is still on the wire.
+ */
+public class MultipartStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+    private static final byte[] HEADERS_END = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final InputStream input;
+    private final byte[] delimiter; // CRLF--boundary
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+    private boolean started;
+    private boolean finished;
+
+    public MultipartStream(InputStream input, String boundary) {
+        this.input = input;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // The first boundary is not preceded by a line break, pretend it is so that every boundary looks the same
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.limit = 2;
+    }
+
+    /**
+     * Extracts the boundary from a {@code Content-Type} header value.
+     *
+     * @return the boundary, or {@code null} if the content type is not {@code multipart/form-data} or has none
+     */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String[] nameAndValue = parameter.trim().split("=", 2);
+            if (nameAndValue.length == 2 && nameAndValue[0].trim().equalsIgnoreCase("boundary")) {
+                String boundary = nameAndValue[1].trim();
+                if (boundary.length() >= 2 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Skips to the part with the given form field name. Earlier parts are read and discarded.
+     *
+     * @return the part, or {@code null} if the body has no such part
+     */
+    public Part part(String name) throws IOException {
+        if (!started) {
+            started = true;
+            skipPart(); // Preamble before the first boundary
+        }
+        while (!finished) {
+            String headers = readHeaders();
+            if (name.equals(dispositionParameter(headers, "name"))) {
+                return new Part(name, dispositionParameter(headers, "filename"), headerValue(headers, "Content-Type"),
+                        new PartInputStream());
+            }
+            skipPart();
+        }
+        return null;
+    }
+
+    /**
+     * Discards the rest of the current part, including the boundary after it.
+     */
+    private void skipPart() throws IOException {
+        PartInputStream part = new PartInputStream();
+        byte[] discard = new byte[BUFFER_SIZE];
+        while (part.read(discard, 0, discard.length) >= 0) {
+            // Skip
+        }
+    }
+
+    /**
+     * Consumes the line after a boundary: {@code --} marks the end of the body, anything else is followed by the
+     * headers of the next part. Must be called right after a delimiter.
+     */
+    private void afterDelimiter() throws IOException {
+        if (!ensure(2)) {
+            throw new IOException("Malformed multipart body: unexpected end after boundary");
+        }
+        if (buffer[position] == '-' && buffer[position + 1] == '-') {
+            finished = true;
+            return;
+        }
+        while (buffer[position] != '\n') {
+            position++; // Transport padding and CR
+            if (!ensure(1)) {
+                throw new IOException("Malformed multipart body: unexpected end after boundary");
+            }
+        }
+        position++;
+    }
+
+    private String readHeaders() throws IOException {
+        int start = position;
+        while (true) {
+            int end = indexOf(HEADERS_END, start);
+            if (end >= 0) {
+                String headers = new String(buffer, position, end - position, StandardCharsets.UTF_8);
+                position = end + 4;
+                return headers;
+            }
+            if (limit - position > MAX_HEADER_SIZE) {
+                throw new IOException("Malformed multipart body: part headers too large");
+            }
+            start = Math.max(position, limit - 3);
+            int offset = position;
+            if (!fill()) {
+                throw new IOException("Malformed multipart body: unexpected end in part headers");
+            }
+            start -= offset - position; // fill() moved the unread bytes to the front
+        }
+    }
+
+    private static String headerValue(String headers, String headerName) {
+        for (String header : headers.split("\r\n")) {
+            int colon = header.indexOf(':');
+            if (colon >= 0 && header.substring(0, colon).trim().equalsIgnoreCase(headerName)) {
+                return header.substring(colon + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    private static String dispositionParameter(String headers, String parameterName) {
+        String disposition = headerValue(headers, "Content-Disposition");
+        if (disposition != null) {
+            for (String parameter : disposition.split(";")) {
+                String[] nameAndValue = parameter.trim().split("=", 2);
+                if (nameAndValue.length == 2 && nameAndValue[0].trim().equalsIgnoreCase(parameterName)) {
+                    String value = nameAndValue[1].trim();
+                    return value.startsWith("\"") && value.endsWith("\"") && value.length() >= 2
+                            ? value.substring(1, value.length() - 1)
+                            : value;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes at least {@code count} unread bytes available unless the input ends first.
+     */
+    private boolean ensure(int count) throws IOException {
+        while (limit - position < count) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer and reads more.
+     *
+     * @return {@code false} at the end of the input
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private int indexOf(byte[] pattern, int from) {
+        int last = limit - pattern.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buffer[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * A form field of the body.
+     *
+     * @param filename    the file name sent by the client, {@code null} if the field is not a file
+     * @param contentType the {@code Content-Type} of the part, {@code null} if not given
+     * @param content     the content, valid until the next call to {@link #part(String)}
+     */
+    public record Part(String name, String filename, String contentType, InputStream content) {
+    }
+
+    /**
+     * Content of one part: everything up to the next delimiter. Bytes that could be the start of the delimiter
+     * are held back until enough input has arrived to tell.
+     */
+    private class PartInputStream extends InputStream {
+        private int end = -1; // Content before this index is known not to contain the delimiter
+        private boolean atDelimiter; // The delimiter starts at end
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                if (position < end) {
+                    int count = Math.min(end - position, length);
+                    System.arraycopy(buffer, position, target, offset, count);
+                    position += count;
+                    return count;
+                }
+                if (atDelimiter) {
+                    position += delimiter.length;
+                    done = true;
+                    afterDelimiter();
+                    return -1;
+                }
+                scan();
+                if (position < end || atDelimiter) {
+                    continue;
+                }
+                if (!fill()) {
+                    throw new IOException("Malformed multipart body: unexpected end in part content");
+                }
+                end = -1; // fill() moved the buffered bytes
+            }
+        }
+
+        private void scan() {
+            int delimiterAt = indexOf(delimiter, position);
+            atDelimiter = delimiterAt >= 0;
+            end = atDelimiter ? delimiterAt : Math.max(position, limit - (delimiter.length - 1));
+        }
+
+        @Override
+        public void close() {
+            // The request stream is owned by the caller
+        }
+    }
+}
@@ -6,23 +6,35 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public enum ProcessType {
-    XML("application/xml"),
-    JSON("application/json"),
-    CSV("text/csv");
+    XML("application/xml", true),
+    JSON("application/json", true),
+    NDJSON("application/x-ndjson", true), // One JSON object per line
+    CSV("text/csv", true),
+    ARROW("application/vnd.apache.arrow.stream", false), // Arrow IPC streaming format
+    BINARY("application/x-trades-binary", true); // See BinaryTradeFormat
 
     private static final Map<String, ProcessType> lookup = Arrays.stream(values())
             .collect(Collectors.toMap(ProcessType::getType, Function.identity()));
 
     private final String type;
+    private final boolean importable;
 
-    ProcessType(String mimeType) {
+    ProcessType(String mimeType, boolean importable) {
         this.type = mimeType;
+        this.importable = importable;
     }
 
     public String getType() {
         return type;
     }
 
+    /**
+     * Whether trades can be read in this format; all formats can be exported.
+     */
+    public boolean isImportable() {
+        return importable;
+    }
+
     public static ProcessType fromMimeType(String mimeType) {
         if (mimeType == null) {
             throw new IllegalArgumentException("MIME type cannot be null");
@@ -35,5 +47,20 @@ public enum ProcessType {
         return processType;
     }
 
+    /**
+     * Looks up the format of a request body.
+     *
+     * @param contentType a {@code Content-Type} header value, parameters such as the charset are ignored
+     * @return the format, or {@code null} if the header is absent or does not name a trade format
+     */
+    public static ProcessType fromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int parameters = contentType.indexOf(';');
+        String mimeType = (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim();
+        return lookup.get(mimeType.toLowerCase());
+    }
+
 }
 
@@ -0,0 +1,234 @@
+package org.peter.processor.io.exporter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.peter.processor.exception.ExportFormatUnavailableException;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Writes the trades in the Arrow IPC streaming format: the schema, then one record batch per exported batch, so
+ * consumers can read the columns without parsing text and the output is streamed like the text formats.
+ * <p>
+ * Schema, all columns nullable:
+ * <ul>
+ *     <li>{@code date}: {@code Date(DAY)}, parsed with {@code app.date-format}; exported trades have been
+ *     validated against it, so it is only null for a date that does not parse</li>
+ *     <li>{@code productName}, {@code currency}: {@code Utf8}</li>
+ *     <li>{@code price}: {@code Float64} for prices written as plain decimals ({@code -12.50}) with at most 15
+ *     significant digits, which a double holds exactly enough to print them back unchanged; null otherwise</li>
+ *     <li>{@code priceText}: {@code Utf8}, the price as received where {@code price} is null, e.g. {@code 1e3} or
+ *     a value with more digits; null otherwise</li>
+ * </ul>
+ * <p>
+ * Arrow's memory layer needs {@code --add-opens=java.base/java.nio=ALL-UNNAMED}. The allocator is created on the
+ * first export, so without that option only Arrow requests fail, with {@link ExportFormatUnavailableException}.
+ */
+@Slf4j
+@Service
+public class ArrowTradeExporter implements TradeExporter {
+    static final Schema SCHEMA = new Schema(List.of(
+            Field.nullable("date", new ArrowType.Date(DateUnit.DAY)),
+            Field.nullable("productName", ArrowType.Utf8.INSTANCE),
+            Field.nullable("currency", ArrowType.Utf8.INSTANCE),
+            Field.nullable("price", new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)),
+            Field.nullable("priceText", ArrowType.Utf8.INSTANCE)));
+
+    private static final int MAX_EXACT_DIGITS = 15; // Decimal digits every double holds exactly
+
+    private final DateTimeFormatter dateFormatter;
+    private BufferAllocator allocator;
+
+    public ArrowTradeExporter(@Value("${app.date-format}") String dateFormat) {
+        this.dateFormatter = DateTimeFormatter.ofPattern(dateFormat);
+    }
+
+    @Override
+    public void checkAvailable() {
+        allocator();
+    }
+
+    @Override
+    public ExportSession begin(OutputStream output) throws IOException {
+        BufferAllocator sessionAllocator = allocator().newChildAllocator("trade-export", 0, Long.MAX_VALUE);
+        VectorSchemaRoot root = VectorSchemaRoot.create(SCHEMA, sessionAllocator);
+        // The writer closes its channel, the output stream belongs to the caller
+        ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(StreamUtils.nonClosing(output)));
+        ArrowExportSession session = new ArrowExportSession(sessionAllocator, root, writer, output, dateFormatter);
+        try {
+            writer.start();
+        } catch (IOException | RuntimeException e) {
+            session.close();
+            throw e;
+        }
+        return session;
+    }
+
+    @Override
+    public String getType() {
+        return ProcessType.ARROW.getType();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (allocator != null) {
+            allocator.close();
+        }
+    }
+
+    private synchronized BufferAllocator allocator() {
+        if (allocator == null) {
+            try {
+                allocator = new RootAllocator();
+            } catch (RuntimeException | LinkageError e) { // Class initialization errors of Arrow's MemoryUtil
+                log.warn("Arrow output is not available: {}", NestedExceptionUtils.getMostSpecificCause(e).toString());
+                throw new ExportFormatUnavailableException(
+                        "Arrow output needs the JVM option --add-opens=java.base/java.nio=ALL-UNNAMED", e);
+            }
+        }
+        return allocator;
+    }
+
+    /**
+     * Returns the price as a double if it is a plain decimal with at most {@value #MAX_EXACT_DIGITS} significant
+     * digits, otherwise {@code null}. Exponents, {@code NaN}, hex and type suffixes, which
+     * {@link Double#parseDouble(String)} would also accept, are left as text.
+     */
+    static Double exactPrice(String price) {
+        if (price == null) {
+            return null;
+        }
+        int i = price.startsWith("-") || price.startsWith("+") ? 1 : 0;
+        int digits = 0;
+        int significantDigits = 0;
+        boolean point = false;
+        for (; i < price.length(); i++) {
+            char c = price.charAt(i);
+            if (c == '.' && !point) {
+                point = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                if (c != '0' || significantDigits > 0) {
+                    significantDigits++;
+                }
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0 || significantDigits > MAX_EXACT_DIGITS) {
+            return null;
+        }
+        return Double.parseDouble(price);
+    }
+
+    private static final class ArrowExportSession implements ExportSession {
+        private final BufferAllocator allocator;
+        private final VectorSchemaRoot root;
+        private final ArrowStreamWriter writer;
+        private final OutputStream output;
+        private final DateTimeFormatter dateFormatter;
+
+        private String lastDate; // Trade files repeat the same few dates
+        private int lastEpochDay;
+
+        ArrowExportSession(BufferAllocator allocator, VectorSchemaRoot root, ArrowStreamWriter writer,
+                           OutputStream output, DateTimeFormatter dateFormatter) {
+            this.allocator = allocator;
+            this.root = root;
+            this.writer = writer;
+            this.output = output;
+            this.dateFormatter = dateFormatter;
+        }
+
+        @Override
+        public void writeBatch(List<Trade> trades) throws IOException {
+            if (trades.isEmpty()) {
+                return;
+            }
+            root.allocateNew(); // Releases the buffers of the previous batch
+            DateDayVector dates = (DateDayVector) root.getVector(0);
+            VarCharVector productNames = (VarCharVector) root.getVector(1);
+            VarCharVector currencies = (VarCharVector) root.getVector(2);
+            Float8Vector prices = (Float8Vector) root.getVector(3);
+            VarCharVector priceTexts = (VarCharVector) root.getVector(4);
+            for (int row = 0; row < trades.size(); row++) {
+                Trade trade = trades.get(row);
+                setDate(dates, row, trade.getDate());
+                setText(productNames, row, trade.getProductName());
+                setText(currencies, row, trade.getCurrency());
+                Double price = exactPrice(trade.getPrice());
+                if (price != null) {
+                    prices.setSafe(row, price);
+                    priceTexts.setNull(row);
+                } else {
+                    prices.setNull(row);
+                    setText(priceTexts, row, trade.getPrice());
+                }
+            }
+            root.setRowCount(trades.size());
+            writer.writeBatch();
+        }
+
+        private void setDate(DateDayVector vector, int row, String date) {
+            if (date != null && !date.equals(lastDate)) {
+                try {
+                    lastEpochDay = Math.toIntExact(LocalDate.parse(date, dateFormatter).toEpochDay());
+                    lastDate = date;
+                } catch (DateTimeException | ArithmeticException e) {
+                    date = null;
+                }
+            }
+            if (date == null) {
+                vector.setNull(row);
+            } else {
+                vector.setSafe(row, lastEpochDay);
+            }
+        }
+
+        private static void setText(VarCharVector vector, int row, String value) {
+            if (value == null) {
+                vector.setNull(row);
+            } else {
+                vector.setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void end() throws IOException {
+            writer.end();
+            output.flush();
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+            root.close();
+            allocator.close();
+        }
+    }
+}
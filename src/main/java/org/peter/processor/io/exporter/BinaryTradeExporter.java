@@ -0,0 +1,49 @@
+package org.peter.processor.io.exporter;
+
+import lombok.RequiredArgsConstructor;
+import org.peter.processor.io.BinaryTradeFormat;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes the trades in the length-prefixed {@link BinaryTradeFormat}, with the product name in place of the
+ * product id. Each batch is encoded into a reusable buffer and written in one go.
+ */
+@Service
+public class BinaryTradeExporter implements TradeExporter {
+
+    @Override
+    public ExportSession begin(OutputStream output) {
+        return new BinaryExportSession(new BinaryTradeFormat.Encoder().header(), output);
+    }
+
+    @Override
+    public String getType() {
+        return ProcessType.BINARY.getType();
+    }
+
+    @RequiredArgsConstructor
+    private static class BinaryExportSession implements ExportSession {
+        private final BinaryTradeFormat.Encoder encoder;
+        private final OutputStream output;
+
+        @Override
+        public void writeBatch(List<Trade> trades) throws IOException {
+            for (Trade trade : trades) {
+                encoder.record(trade.getDate(), trade.getProductName(), trade.getCurrency(), trade.getPrice());
+            }
+            encoder.writeTo(output);
+        }
+
+        @Override
+        public void end() throws IOException {
+            encoder.writeTo(output); // The header, if there was no batch
+            output.flush();
+        }
+    }
+}
@@ -1,31 +1,93 @@
 package org.peter.processor.io.exporter;
 
+import lombok.RequiredArgsConstructor;
 import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class CsvTradeExporter implements TradeExporter {
 
-    public void writeTrades(BufferedWriter writer, List<Map<String, String>> trades) throws IOException {
+    @Override
+    public ExportSession begin(OutputStream output) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
         writer.write("date,productName,currency,price\n");
-        for (Map<String, String> trade : trades) {
-            writer.write(String.join(",",
-                    trade.get("date"),
-                    trade.get("productName"),
-                    trade.get("currency"),
-                    trade.get("price")
-            ) + "\n");
-        }
-        writer.flush();
+        return new CsvExportSession(writer);
     }
 
     @Override
     public String getType() {
         return ProcessType.CSV.getType();
     }
-}
\ No newline at end of file
+
+    @RequiredArgsConstructor
+    private static class CsvExportSession implements ExportSession {
+        private final BufferedWriter writer;
+
+        @Override
+        public void writeBatch(List<Trade> trades) throws IOException {
+            for (Trade trade : trades) {
+                writeField(trade.getDate());
+                writer.write(',');
+                writeField(trade.getProductName());
+                writer.write(',');
+                writeField(trade.getCurrency());
+                writer.write(',');
+                writeField(trade.getPrice());
+                writer.write('\n');
+            }
+            writer.flush();
+        }
+
+        @Override
+        public void end() throws IOException {
+            writer.flush();
+        }
+
+        /**
+         * Writes the value as is, or quoted as in RFC 4180 when it holds a delimiter, a quote or a line break.
+         * Values with surrounding whitespace are quoted too, as unquoted fields are trimmed when read back.
+         */
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (!needsQuotes(value)) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"'); // Escaped by doubling
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        private static boolean needsQuotes(String value) {
+            if (value.isEmpty()) {
+                return false;
+            }
+            if (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1))) {
+                return true;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
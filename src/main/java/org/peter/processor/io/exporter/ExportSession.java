@@ -0,0 +1,35 @@
+package org.peter.processor.io.exporter;
+
+import org.peter.processor.model.Trade;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An open export document created by {@link TradeExporter#begin}.
+ * Accepts any number of batches and must be finished with {@link #end()}.
+ */
+public interface ExportSession extends Closeable {
+
+    /**
+     * Writes a batch of trades into the open document and passes the encoded batch on to the output stream.
+     *
+     * @param trades the trades to write
+     */
+    void writeBatch(List<Trade> trades) throws IOException;
+
+    /**
+     * Closes the document (e.g. the array or root element) and flushes the output stream.
+     * The output stream itself is left open.
+     */
+    void end() throws IOException;
+
+    /**
+     * Releases the resources held by the session, whether or not the document was ended.
+     * The output stream is left open.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -1,15 +1,17 @@
 package org.peter.processor.io.exporter;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.Map;
 
 @Slf4j
 @Service
@@ -17,20 +19,45 @@ public class JsonTradeExporter implements TradeExporter {
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
-    public void writeTrades(BufferedWriter writer, List<Map<String, String>> trades) throws IOException {
-        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(writer);
+    public ExportSession begin(OutputStream output) throws IOException {
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8);
         jsonGenerator.writeStartArray();
-
-        for (Map<String, String> trade : trades) {
-            objectMapper.writeValue(jsonGenerator, trade);
-        }
-
-        jsonGenerator.writeEndArray();
-        jsonGenerator.flush();
+        return new JsonExportSession(jsonGenerator);
     }
 
     @Override
     public String getType() {
         return ProcessType.JSON.getType();
     }
+
+    /**
+     * Writes one trade as a JSON object.
+     */
+    static void writeTrade(JsonGenerator jsonGenerator, Trade trade) throws IOException {
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeStringField("date", trade.getDate());
+        jsonGenerator.writeStringField("productName", trade.getProductName());
+        jsonGenerator.writeStringField("currency", trade.getCurrency());
+        jsonGenerator.writeStringField("price", trade.getPrice());
+        jsonGenerator.writeEndObject();
+    }
+
+    @RequiredArgsConstructor
+    private static class JsonExportSession implements ExportSession {
+        private final JsonGenerator jsonGenerator;
+
+        @Override
+        public void writeBatch(List<Trade> trades) throws IOException {
+            for (Trade trade : trades) {
+                writeTrade(jsonGenerator, trade);
+            }
+            jsonGenerator.flush();
+        }
+
+        @Override
+        public void end() throws IOException {
+            jsonGenerator.writeEndArray();
+            jsonGenerator.flush();
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package org.peter.processor.io.exporter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes newline-delimited JSON: one trade object per line and no enclosing array, so every flushed batch is a
+ * run of complete records that consumers can process before the export ends.
+ */
+@Service
+public class NdjsonTradeExporter implements TradeExporter {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public ExportSession begin(OutputStream output) throws IOException {
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8);
+        jsonGenerator.setRootValueSeparator(null); // Each object ends its own line instead
+        return new NdjsonExportSession(jsonGenerator);
+    }
+
+    @Override
+    public String getType() {
+        return ProcessType.NDJSON.getType();
+    }
+
+    @RequiredArgsConstructor
+    private static class NdjsonExportSession implements ExportSession {
+        private final JsonGenerator jsonGenerator;
+
+        @Override
+        public void writeBatch(List<Trade> trades) throws IOException {
+            for (Trade trade : trades) {
+                JsonTradeExporter.writeTrade(jsonGenerator, trade);
+                jsonGenerator.writeRaw('\n');
+            }
+            jsonGenerator.flush();
+        }
+
+        @Override
+        public void end() throws IOException {
+            jsonGenerator.flush();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package org.peter.processor.io.exporter;
 
-import java.io.BufferedWriter;
+import org.peter.processor.exception.ExportFormatUnavailableException;
+import org.peter.processor.model.Trade;
+
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Interface for exporting trade data in different formats.
@@ -11,11 +13,32 @@ import java.util.Map;
 public interface TradeExporter {
 
     /**
-     * Exports a list of trades into a specific format.
+     * Opens a new export document on the given stream, writing its header (if any).
+     *
+     * @param output the stream the document is written to; text formats are encoded as UTF-8
+     * @return the session accepting the trade batches
+     */
+    ExportSession begin(OutputStream output) throws IOException;
+
+    /**
+     * Checks that the format can be written in this JVM, before a request reads any input.
+     *
+     * @throws ExportFormatUnavailableException when it cannot
+     */
+    default void checkAvailable() {
+    }
+
+    /**
+     * Exports a list of trades into a specific format as a single document.
      *
-     * @param trades the list of stream trade data, where each trade is represented as a map of key-value pairs
+     * @param trades the list of trade data
      */
-    void writeTrades(BufferedWriter writer, List<Map<String, String>> trades) throws IOException;
+    default void writeTrades(OutputStream output, List<Trade> trades) throws IOException {
+        try (ExportSession session = begin(output)) {
+            session.writeBatch(trades);
+            session.end();
+        }
+    }
 
     /**
      * Returns the type of export format (e.g., "csv", "json", "xml").
@@ -1,39 +1,41 @@
 package org.peter.processor.io.exporter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
-import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
-import lombok.extern.slf4j.Slf4j;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedWriter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.Map;
 
-@Slf4j
+/**
+ * Writes the whole {@code <Trades>} document through one StAX writer, element by element, so no per-trade
+ * objects or strings are created. Indentation is off unless {@code app.export.xml.pretty-print} is set.
+ */
 @Service
 public class XmlTradeExporter implements TradeExporter {
-    private final XmlMapper xmlMapper = new XmlMapper();
+    private static final String[] INDENTS = {"\n", "\n  ", "\n    "}; // By depth: root, trade, field
+    private final XMLOutputFactory outputFactory = new XmlFactory().getXMLOutputFactory();
+    private final boolean prettyPrint;
 
-    @Override
-    public void writeTrades(BufferedWriter writer, List<Map<String, String>> trades) throws IOException {
-        writer.write("<Trades>\n");
+    public XmlTradeExporter(@Value("${app.export.xml.pretty-print:false}") boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
 
-        for (Map<String, String> trade : trades) {
-            try {
-                Trade tradeWrapper = new Trade(trade);
-                writer.write(xmlMapper.writerWithDefaultPrettyPrinter().writeValueAsString(tradeWrapper) + "\n");
-            } catch (JsonProcessingException e) {
-                log.error("Error converting trade to XML: {}", e.getMessage());
-                throw new RuntimeException("Error converting trade to XML", e);
-            }
+    @Override
+    public ExportSession begin(OutputStream output) throws IOException {
+        try {
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(output, "UTF-8");
+            writer.writeStartElement("Trades");
+            return new XmlExportSession(writer, prettyPrint);
+        } catch (XMLStreamException e) {
+            throw new IOException("Error starting the XML document", e);
         }
-
-        writer.write("</Trades>\n");
-        writer.flush();
     }
 
     @Override
@@ -41,27 +43,65 @@ public class XmlTradeExporter implements TradeExporter {
         return ProcessType.XML.getType();
     }
 
-    @JacksonXmlRootElement(localName = "Trade")
-    private static class Trade {
+    private record XmlExportSession(XMLStreamWriter writer, boolean prettyPrint) implements ExportSession {
 
-        @JacksonXmlProperty(localName = "date")
-        private final String date;
+        @Override
+        public void writeBatch(List<Trade> trades) throws IOException {
+            try {
+                for (Trade trade : trades) {
+                    indent(1);
+                    writer.writeStartElement("Trade");
+                    writeElement("date", trade.getDate());
+                    writeElement("price", trade.getPrice());
+                    writeElement("currency", trade.getCurrency());
+                    writeElement("productName", trade.getProductName());
+                    indent(1);
+                    writer.writeEndElement();
+                }
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException("Error writing trades as XML", e);
+            }
+        }
 
-        @JacksonXmlProperty(localName = "price")
-        private final String price;
+        @Override
+        public void end() throws IOException {
+            try {
+                indent(0);
+                writer.writeEndElement();
+                indent(0);
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException("Error ending the XML document", e);
+            }
+        }
 
-        @JacksonXmlProperty(localName = "currency")
-        private final String currency;
+        /**
+         * Releases the writer's buffers; the output stream is left open.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                writer.close();
+            } catch (XMLStreamException e) {
+                throw new IOException("Error closing the XML writer", e);
+            }
+        }
 
-        @JacksonXmlProperty(localName = "productName")
-        private final String productName;
+        private void writeElement(String name, String value) throws XMLStreamException {
+            indent(2);
+            writer.writeStartElement(name);
+            writer.writeCharacters(value != null ? value : "");
+            writer.writeEndElement();
+        }
 
-        public Trade(Map<String, String> properties) {
-            this.date = properties.getOrDefault("date", "");
-            this.productName = properties.getOrDefault("productName", "");
-            this.currency = properties.getOrDefault("currency", "");
-            this.price = properties.getOrDefault("price", "");
+        /**
+         * Starts a new line indented to the given depth.
+         */
+        private void indent(int depth) throws XMLStreamException {
+            if (prettyPrint) {
+                writer.writeCharacters(INDENTS[depth]);
+            }
         }
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package org.peter.processor.io.importer;
+
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads trades in the length-prefixed {@link org.peter.processor.io.BinaryTradeFormat}, without tokenizing.
+ * Records that cannot be decoded are reported and skipped; a stream that is not in the format or ends within a
+ * record fails.
+ */
+@Service
+public class BinaryTradeImporter implements TradeImporter {
+
+    @Override
+    public Stream<Trade> importData(InputStream inputStream) {
+        return importData(inputStream, RowIssueListener.NONE);
+    }
+
+    @Override
+    public Stream<Trade> importData(InputStream inputStream, RowIssueListener listener) {
+        return StreamSupport.stream(BinaryTradeSpliterator.of(inputStream, listener), false);
+    }
+
+    /**
+     * Decodes the memory-mapped file in place. The stream is sequential, as record boundaries can only be found
+     * from the start of the file.
+     */
+    @Override
+    public Stream<Trade> importData(Path file, RowIssueListener listener) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                return StreamSupport.stream(BinaryTradeSpliterator.of(channel, listener), false)
+                        .onClose(() -> closeChannel(channel));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeChannel(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String getType() {
+        return ProcessType.BINARY.getType();
+    }
+}
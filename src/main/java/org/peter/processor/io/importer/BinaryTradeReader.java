@@ -0,0 +1,135 @@
+package org.peter.processor.io.importer;
+
+import org.peter.processor.io.BinaryTradeFormat;
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the records of the {@link BinaryTradeFormat} in place from a {@link ByteBuffer}, e.g. a memory-mapped
+ * region of a file. Fields are located by their length prefixes and only the final strings are allocated; heap
+ * buffers are decoded straight from their backing array.
+ */
+class BinaryTradeReader {
+    private ByteBuffer buffer;
+    private long bufferOffset;
+    private int position;
+    private int end;
+    private byte[] scratch = new byte[64];
+
+    /**
+     * Reads from the position of the given buffer on.
+     *
+     * @param bufferOffset offset of the first byte of the buffer in the whole input, for error messages
+     */
+    void wrap(ByteBuffer buffer, long bufferOffset) {
+        this.buffer = buffer;
+        this.bufferOffset = bufferOffset;
+    }
+
+    /**
+     * Returns the size of the record at the buffer position including its length prefix, or {@code -1} if the
+     * buffer ends within the prefix. The record itself may extend beyond the buffer limit.
+     *
+     * @throws UncheckedIOException if the prefix is not a valid record length, the records cannot be told apart
+     * after that
+     */
+    int nextRecordSize() {
+        position = buffer.position();
+        end = buffer.limit();
+        long length = varint();
+        if (length == -1) {
+            if (end - buffer.position() < BinaryTradeFormat.MAX_VARINT_BYTES) {
+                return -1;
+            }
+            throw invalidLength();
+        }
+        if (length > BinaryTradeFormat.MAX_RECORD_BYTES) {
+            throw invalidLength();
+        }
+        return position - buffer.position() + (int) length;
+    }
+
+    /**
+     * Decodes the record at the buffer position, which must be complete, and moves the position past it.
+     *
+     * @return the trade, or {@code null} if the record is malformed; it is reported to the listener and skipped
+     */
+    Trade readRecord(int recordSize, RowIssueListener listener) {
+        int start = buffer.position();
+        position = start;
+        end = start + recordSize;
+        varint(); // The length, already checked
+        buffer.position(end);
+
+        String date = text();
+        long product = varint();
+        String productText = null;
+        if (product != -1 && (product & 1) == 1) {
+            productText = text(product >>> 1);
+        }
+        String currency = text();
+        String price = text();
+
+        boolean numericProduct = product != -1 && (product & 1) == 0 && (product >>> 1) <= Integer.MAX_VALUE;
+        if (date == null || currency == null || price == null || position != end
+                || (!numericProduct && productText == null)) {
+            listener.onIssue(RowIssue.MALFORMED_ROW, "record at byte " + (bufferOffset + start));
+            return null;
+        }
+        return numericProduct
+                ? Trade.of(date, (int) (product >>> 1), currency, price)
+                : Trade.of(date, productText, currency, price);
+    }
+
+    /**
+     * Reads a varint at the current position, or returns {@code -1} if it runs past the end or is too long.
+     */
+    private long varint() {
+        long value = 0;
+        for (int i = 0; i < BinaryTradeFormat.MAX_VARINT_BYTES && position < end; i++) {
+            byte b = buffer.get(position++);
+            value |= (long) (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    private String text() {
+        long length = varint();
+        return length == -1 ? null : text(length);
+    }
+
+    /**
+     * Decodes the UTF-8 text of the given length at the current position, or returns {@code null} if it runs
+     * past the end of the record.
+     */
+    private String text(long length) {
+        if (length > end - position) {
+            return null;
+        }
+        int size = (int) length;
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + position, size, StandardCharsets.UTF_8);
+        } else {
+            if (scratch.length < size) {
+                scratch = new byte[Math.max(size, scratch.length * 2)];
+            }
+            buffer.get(position, scratch, 0, size);
+            value = new String(scratch, 0, size, StandardCharsets.UTF_8);
+        }
+        position += size;
+        return value;
+    }
+
+    private UncheckedIOException invalidLength() {
+        return new UncheckedIOException(new IOException(
+                "Invalid binary trade record length at byte " + (bufferOffset + buffer.position())));
+    }
+}
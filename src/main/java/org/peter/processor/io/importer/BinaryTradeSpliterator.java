@@ -0,0 +1,162 @@
+package org.peter.processor.io.importer;
+
+import org.peter.processor.io.BinaryTradeFormat;
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Ordered spliterator over the records of a binary trade stream. The input is read window by window, either from
+ * a stream into a reusable heap buffer or by memory-mapping a file, and the {@link BinaryTradeReader} decodes the
+ * records in place; a record cut by the end of a window is read again from the start of the next one.
+ */
+abstract class BinaryTradeSpliterator extends Spliterators.AbstractSpliterator<Trade> {
+    static final int BUFFER_BYTES = 64 * 1024;
+    static final int WINDOW_BYTES = 16 * 1024 * 1024;
+
+    private final BinaryTradeReader reader = new BinaryTradeReader();
+    private final RowIssueListener listener;
+    private boolean headerRead;
+
+    /** The current window, positioned at the next record. */
+    protected ByteBuffer window = ByteBuffer.allocate(0);
+    /** Offset of the first byte of the window in the input. */
+    protected long windowOffset;
+
+    BinaryTradeSpliterator(RowIssueListener listener) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.listener = listener;
+    }
+
+    static BinaryTradeSpliterator of(InputStream input, RowIssueListener listener) {
+        return new StreamSpliterator(input, listener);
+    }
+
+    static BinaryTradeSpliterator of(FileChannel channel, RowIssueListener listener) throws IOException {
+        return new FileSpliterator(channel, listener);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trade> action) {
+        if (!headerRead) {
+            headerRead = true;
+            if (!readHeader()) {
+                return false;
+            }
+        }
+        while (true) {
+            reader.wrap(window, windowOffset);
+            int size = reader.nextRecordSize();
+            if (size < 0 || size > window.remaining()) {
+                if (!fill(size < 0 ? BinaryTradeFormat.MAX_VARINT_BYTES : size)) {
+                    if (window.hasRemaining()) {
+                        throw new UncheckedIOException(new IOException(
+                                "Binary trade stream ends within the record at byte " + (windowOffset + window.position())));
+                    }
+                    return false;
+                }
+                continue;
+            }
+            Trade trade = reader.readRecord(size, listener);
+            if (trade != null) {
+                action.accept(trade);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Checks the header and moves past it; an empty input holds no trades.
+     */
+    private boolean readHeader() {
+        byte[] header = BinaryTradeFormat.HEADER;
+        while (window.remaining() < header.length && fill(header.length)) {
+            // Reads until the header is complete or the input ends
+        }
+        if (windowOffset == 0 && !window.hasRemaining()) {
+            return false;
+        }
+        if (window.remaining() < header.length
+                || !window.slice(window.position(), header.length).equals(ByteBuffer.wrap(header))) {
+            throw new UncheckedIOException(new IOException("Input is not a binary trade stream of version " + header[header.length - 1]));
+        }
+        window.position(window.position() + header.length);
+        return true;
+    }
+
+    /**
+     * Loads more input after the unread bytes of the window.
+     *
+     * @param required the number of unread bytes wanted in the window; never more than a record and its prefix
+     * @return {@code false} if the input has ended
+     */
+    protected abstract boolean fill(int required);
+
+    private static class StreamSpliterator extends BinaryTradeSpliterator {
+        private final InputStream input;
+
+        StreamSpliterator(InputStream input, RowIssueListener listener) {
+            super(listener);
+            this.input = input;
+            this.window = ByteBuffer.allocate(BUFFER_BYTES).limit(0);
+        }
+
+        @Override
+        protected boolean fill(int required) {
+            windowOffset += window.position();
+            if (required > window.capacity()) {
+                byte[] unread = Arrays.copyOfRange(window.array(), window.position(), window.limit());
+                window = ByteBuffer.allocate(Math.max(required, window.capacity() * 2)).put(unread);
+            } else {
+                window.compact();
+            }
+            try {
+                int read = input.read(window.array(), window.position(), window.remaining());
+                if (read > 0) {
+                    window.position(window.position() + read);
+                }
+                window.flip();
+                return read > 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class FileSpliterator extends BinaryTradeSpliterator {
+        private final FileChannel channel;
+        private final long size;
+
+        FileSpliterator(FileChannel channel, RowIssueListener listener) throws IOException {
+            super(listener);
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        /**
+         * Maps the next window from the start of the unread bytes on.
+         */
+        @Override
+        protected boolean fill(int required) {
+            long position = windowOffset + window.position();
+            if (windowOffset + window.limit() >= size) {
+                return false; // The window already reaches the end of the file
+            }
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+                windowOffset = position;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
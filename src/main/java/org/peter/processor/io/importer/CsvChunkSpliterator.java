@@ -0,0 +1,173 @@
+package org.peter.processor.io.importer;
+
+import org.peter.processor.io.CsvTokenizer;
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ordered spliterator over the rows of a region of a CSV file. {@link #trySplit()} cuts the region on a line
+ * boundary, so every chunk can be parsed on its own thread, and a chunk is memory-mapped window by window while
+ * it is traversed. Cuts are made at any line break, so the file must not contain quoted fields, which may span
+ * lines; see {@link #containsQuote(FileChannel)}.
+ */
+class CsvChunkSpliterator implements Spliterator<Trade> {
+    static final int ESTIMATED_ROW_BYTES = 32;
+    private static final long MIN_SPLIT_BYTES = 64 * 1024;
+    private static final int WINDOW_BYTES = 16 * 1024 * 1024;
+    private static final int SCAN_BYTES = 8 * 1024;
+    private static final int QUOTE_SCAN_BYTES = 256 * 1024;
+
+    private final FileChannel channel;
+    private final Function<CsvTokenizer, Trade> recordParser;
+    private final long end;
+    private long position;
+
+    private CsvTokenizer window;
+
+    CsvChunkSpliterator(FileChannel channel, long start, long end, Function<CsvTokenizer, Trade> recordParser) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.recordParser = recordParser;
+    }
+
+    /**
+     * Creates a spliterator over the whole file, skipping the header line.
+     */
+    static CsvChunkSpliterator skippingHeader(FileChannel channel, Function<CsvTokenizer, Trade> recordParser) throws IOException {
+        long size = channel.size();
+        return new CsvChunkSpliterator(channel, nextLineStart(channel, 0, size), size, recordParser);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trade> action) {
+        while (true) {
+            if (window == null || !window.nextRecord()) {
+                if (position >= end) {
+                    return false;
+                }
+                mapWindow();
+                continue;
+            }
+            Trade trade = recordParser.apply(window);
+            if (trade != null) {
+                action.accept(trade);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<Trade> trySplit() {
+        long remaining = end - position;
+        if (window != null || remaining < 2 * MIN_SPLIT_BYTES) {
+            return null;
+        }
+        try {
+            long split = nextLineStart(channel, position + remaining / 2, end);
+            if (split >= end) {
+                return null;
+            }
+            CsvChunkSpliterator prefix = new CsvChunkSpliterator(channel, position, split, recordParser);
+            position = split;
+            return prefix;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Estimated from the remaining bytes, so that callers can size chunks in rows.
+     */
+    @Override
+    public long estimateSize() {
+        long remaining = end - position;
+        return remaining > 0 ? Math.max(1, remaining / ESTIMATED_ROW_BYTES) : 0;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Maps the next window of the region, trimmed to its last complete line unless it reaches the end.
+     */
+    private void mapWindow() {
+        long size = Math.min(WINDOW_BYTES, end - position);
+        MappedByteBuffer mapped;
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int windowLimit = (int) size;
+        if (position + size < end) {
+            int last = windowLimit - 1;
+            while (last >= 0 && mapped.get(last) != '\n') {
+                last--;
+            }
+            if (last < 0) {
+                throw new UncheckedIOException(new IOException("Line at offset " + position + " is longer than " + WINDOW_BYTES + " bytes"));
+            }
+            windowLimit = last + 1;
+        }
+
+        window = new CsvTokenizer(mapped.slice(0, windowLimit));
+        position += windowLimit;
+    }
+
+    /**
+     * Returns whether the file contains a double quote anywhere. Only then may a line break be part of a field,
+     * as the position of a cut alone cannot tell whether it lies within quotes.
+     */
+    static boolean containsQuote(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(QUOTE_SCAN_BYTES);
+        long offset = 0;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                return false;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '"') {
+                    return true;
+                }
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Returns the offset just after the first line break at or after {@code from}, or {@code end} if there is none.
+     */
+    static long nextLineStart(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        long offset = from;
+        while (offset < end) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return Math.min(offset + i + 1, end);
+                }
+            }
+            offset += read;
+        }
+        return end;
+    }
+}
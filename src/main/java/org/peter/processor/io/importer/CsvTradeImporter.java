@@ -1,40 +1,98 @@
 package org.peter.processor.io.importer;
 
-import lombok.extern.slf4j.Slf4j;
+import org.peter.processor.io.CsvTokenizer;
 import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
-import java.util.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-@Slf4j
 @Service
 public class CsvTradeImporter implements TradeImporter {
+    private static final int COLUMN_COUNT = 4; // date,productId,currency,price
 
     @Override
-    public Stream<Map<String, String>> importData(InputStream inputStream) {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        return reader.lines()
-                .skip(1)
-                .map(this::parseLine)
-                .filter(Objects::nonNull);
+    public Stream<Trade> importData(InputStream inputStream) {
+        return importData(inputStream, RowIssueListener.NONE);
     }
 
-    private Map<String, String> parseLine(String line) {
-        String[] headers = {"date", "productId", "currency", "price"};
-        String[] values = line.split(",");
+    @Override
+    public Stream<Trade> importData(InputStream inputStream, RowIssueListener listener) {
+        CsvTokenizer tokenizer = new CsvTokenizer(inputStream);
 
-        if (values.length != headers.length) {
-            log.warn("Skipping invalid line: {}", line);
-            return null;
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Trade>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean headerSkipped;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Trade> action) {
+                if (!headerSkipped) {
+                    headerSkipped = true;
+                    tokenizer.nextRecord();
+                }
+                while (tokenizer.nextRecord()) {
+                    Trade trade = parseRecord(tokenizer, listener);
+                    if (trade != null) {
+                        action.accept(trade);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }, false);
+    }
+
+    /**
+     * Returns a parallel stream over the memory-mapped file; its spliterator splits on line boundaries and
+     * keeps the rows in file order. A file with quoted fields is read sequentially instead, since a quoted
+     * field may span lines and a cut could fall within it.
+     */
+    @Override
+    public Stream<Trade> importData(Path file, RowIssueListener listener) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                if (CsvChunkSpliterator.containsQuote(channel)) {
+                    return importData(Channels.newInputStream(channel), listener).onClose(() -> closeChannel(channel));
+                }
+                return StreamSupport.stream(CsvChunkSpliterator.skippingHeader(channel, record -> parseRecord(record, listener)), true)
+                        .onClose(() -> closeChannel(channel));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
+
+    private void closeChannel(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        Map<String, String> trade = new HashMap<>();
-        for (int i = 0; i < headers.length; i++) {
-            trade.put(headers[i], values[i].trim());
+    private Trade parseRecord(CsvTokenizer record, RowIssueListener listener) {
+        if (record.fieldCount() != COLUMN_COUNT) {
+            listener.onIssue(RowIssue.MALFORMED_ROW, record.recordText());
+            return null;
         }
-        return trade;
+
+        int productId = record.unsignedIntField(1);
+        return productId != Trade.NON_NUMERIC_ID
+                ? Trade.of(record.field(0), productId, record.field(2), record.field(3))
+                : Trade.of(record.field(0), record.field(1), record.field(2), record.field(3));
     }
 
     @Override
@@ -0,0 +1,128 @@
+package org.peter.processor.io.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
+
+/**
+ * Reads one trade record off a {@link JsonParser}. The four trade fields are read straight off the parser; other
+ * fields are skipped. Records that are not objects, lack a field or hold a nested value in one are reported to
+ * the listener and skipped.
+ */
+class JsonTradeReader {
+    private final RowIssueListener listener;
+
+    JsonTradeReader(RowIssueListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Reads the record starting at the given token and leaves the parser on its last token.
+     *
+     * @param offset offset of the record in the whole input, for diagnostics
+     * @return the trade, or {@code null} if the record is not a trade; it is reported and skipped
+     */
+    Trade read(JsonParser parser, JsonToken token, long offset) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return rejected(offset, "not an object");
+        }
+
+        String date = null;
+        String productIdText = null;
+        int productId = Trade.NON_NUMERIC_ID;
+        String currency = null;
+        String price = null;
+        String nestedField = null;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+                if (isTradeField(field)) {
+                    nestedField = field;
+                }
+                continue;
+            }
+            switch (field) {
+                case "date" -> date = text(parser, value);
+                case "productId" -> {
+                    productId = numericProductId(parser, value);
+                    if (productId == Trade.NON_NUMERIC_ID) {
+                        productIdText = text(parser, value);
+                    }
+                }
+                case "currency" -> currency = text(parser, value);
+                case "price" -> price = text(parser, value);
+                default -> {
+                    // Not a trade field
+                }
+            }
+        }
+
+        if (nestedField != null) {
+            return rejected(offset, "nested value in " + nestedField);
+        }
+        if (date == null || (productIdText == null && productId == Trade.NON_NUMERIC_ID) || currency == null || price == null) {
+            return rejected(offset, "missing field");
+        }
+        return productId != Trade.NON_NUMERIC_ID
+                ? Trade.of(date, productId, currency, price)
+                : Trade.of(date, productIdText, currency, price);
+    }
+
+    /**
+     * Reports the record at the given offset as malformed.
+     *
+     * @return {@code null}, for use as the result of a skipped record
+     */
+    Trade rejected(long offset, String reason) {
+        listener.onIssue(RowIssue.MALFORMED_ROW, "record at byte " + offset + ": " + reason);
+        return null;
+    }
+
+    /**
+     * Reads a product id given as a JSON number or as a string of digits without creating a string, with the
+     * rules of {@link Trade#parseProductId(String)}.
+     */
+    private static int numericProductId(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getNumberType() == JsonParser.NumberType.INT && parser.getIntValue() >= 0
+                    ? parser.getIntValue() : Trade.NON_NUMERIC_ID;
+        }
+        if (value != JsonToken.VALUE_STRING) {
+            return Trade.NON_NUMERIC_ID;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (length == 0 || length > 9 || (length > 1 && chars[offset] == '0')) {
+            return Trade.NON_NUMERIC_ID;
+        }
+        int id = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return Trade.NON_NUMERIC_ID;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    /**
+     * Returns the text of a scalar value, e.g. a number as written; {@code null} for JSON null.
+     */
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    private static boolean isTradeField(String field) {
+        return switch (field) {
+            case "date", "productId", "currency", "price" -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package org.peter.processor.io.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Reads trades from JSON tokens: the elements of a top-level array or a sequence of top-level objects. Records
+ * are read and rejected by {@link JsonTradeReader}, while input that is not valid JSON fails with its location,
+ * since the parser cannot resume after it. Newline-delimited files are read line by line by
+ * {@link NdjsonTradeSpliterator} instead.
+ */
+class JsonTradeSpliterator extends Spliterators.AbstractSpliterator<Trade> {
+    private final JsonFactory jsonFactory;
+    private final InputStream inputStream;
+    private final JsonTradeReader reader;
+    private JsonParser parser;
+    private boolean array;
+    private JsonToken pending; // The first object of a sequence
+
+    JsonTradeSpliterator(JsonFactory jsonFactory, InputStream inputStream, RowIssueListener listener) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.jsonFactory = jsonFactory;
+        this.inputStream = inputStream;
+        this.reader = new JsonTradeReader(listener);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trade> action) {
+        try {
+            if (parser == null && !open()) {
+                return false;
+            }
+            while (!parser.isClosed()) {
+                JsonToken token = pending != null ? pending : parser.nextToken();
+                pending = null;
+                if (token == null || (array && token == JsonToken.END_ARRAY)) {
+                    parser.close(); // Returns the buffers, the input stays open
+                    return false;
+                }
+                Trade trade = reader.read(parser, token, parser.currentTokenLocation().getByteOffset());
+                if (trade != null) {
+                    action.accept(trade);
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates the parser and tells a top-level array from a sequence of objects; empty input has no trades.
+     */
+    private boolean open() throws IOException {
+        parser = jsonFactory.createParser(inputStream);
+        JsonToken first = parser.nextToken();
+        if (first == null) {
+            return false;
+        }
+        if (first == JsonToken.START_ARRAY) {
+            array = true;
+        } else if (first != JsonToken.START_OBJECT) {
+            throw new UncheckedIOException(new IOException(
+                    "JSON trades must be an array or newline-delimited objects, found " + first));
+        } else {
+            pending = first;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,114 @@
+package org.peter.processor.io.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Ordered spliterator over the records of a region of a newline-delimited JSON file. Like
+ * {@link CsvChunkSpliterator} it cuts the region on a line boundary, so that every chunk is parsed on its own
+ * thread; a chunk is read with positional reads, so the chunks share the channel.
+ */
+class NdjsonChunkSpliterator implements Spliterator<Trade> {
+    static final int ESTIMATED_ROW_BYTES = 80;
+    private static final long MIN_SPLIT_BYTES = 64 * 1024;
+
+    private final JsonFactory jsonFactory;
+    private final FileChannel channel;
+    private final RowIssueListener listener;
+    private final long end;
+    private long position;
+
+    private NdjsonTradeSpliterator records;
+
+    NdjsonChunkSpliterator(JsonFactory jsonFactory, FileChannel channel, long start, long end, RowIssueListener listener) {
+        this.jsonFactory = jsonFactory;
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trade> action) {
+        if (records == null) {
+            records = new NdjsonTradeSpliterator(jsonFactory, new RegionInputStream(channel, position, end), position,
+                    listener);
+        }
+        return records.tryAdvance(action);
+    }
+
+    @Override
+    public Spliterator<Trade> trySplit() {
+        long remaining = end - position;
+        if (records != null || remaining < 2 * MIN_SPLIT_BYTES) {
+            return null;
+        }
+        try {
+            long split = CsvChunkSpliterator.nextLineStart(channel, position + remaining / 2, end);
+            if (split >= end) {
+                return null;
+            }
+            NdjsonChunkSpliterator prefix = new NdjsonChunkSpliterator(jsonFactory, channel, position, split, listener);
+            position = split;
+            return prefix;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Estimated from the remaining bytes, so that callers can size chunks in rows.
+     */
+    @Override
+    public long estimateSize() {
+        long remaining = records == null ? end - position : 0;
+        return remaining > 0 ? Math.max(1, remaining / ESTIMATED_ROW_BYTES) : 0;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Reads a region of the file without moving the channel position.
+     */
+    private static class RegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RegionInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == 1 ? single[0] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position));
+            int read = channel.read(buffer, position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.peter.processor.io.importer;
+
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads newline-delimited JSON (JSON Lines): one trade object per line, with the same fields and rejections as
+ * {@link JsonTradeImporter}. Lines are parsed one at a time, so a line that is not valid JSON is only a malformed
+ * row. There is no enclosing document, so files are split on line boundaries and parsed in parallel like CSV files.
+ */
+@Service
+public class NdjsonTradeImporter implements TradeImporter {
+
+    @Override
+    public Stream<Trade> importData(InputStream inputStream) {
+        return importData(inputStream, RowIssueListener.NONE);
+    }
+
+    @Override
+    public Stream<Trade> importData(InputStream inputStream, RowIssueListener listener) {
+        return StreamSupport.stream(
+                new NdjsonTradeSpliterator(JsonTradeImporter.JSON_FACTORY, inputStream, 0, listener), false);
+    }
+
+    /**
+     * Returns a parallel stream whose spliterator splits the file on line boundaries and keeps the rows in file
+     * order.
+     */
+    @Override
+    public Stream<Trade> importData(Path file, RowIssueListener listener) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                NdjsonChunkSpliterator chunks = new NdjsonChunkSpliterator(
+                        JsonTradeImporter.JSON_FACTORY, channel, 0, channel.size(), listener);
+                return StreamSupport.stream(chunks, true).onClose(() -> closeChannel(channel));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeChannel(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String getType() {
+        return ProcessType.NDJSON.getType();
+    }
+}
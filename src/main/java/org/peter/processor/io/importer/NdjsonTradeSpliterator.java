@@ -0,0 +1,131 @@
+package org.peter.processor.io.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Reads newline-delimited JSON one line at a time. Every line is parsed on its own, straight from the read
+ * buffer, so a line that is not valid JSON is reported as a malformed row and reading goes on with the next one.
+ * Records are read and rejected by {@link JsonTradeReader}; blank lines are skipped.
+ */
+class NdjsonTradeSpliterator extends Spliterators.AbstractSpliterator<Trade> {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JsonFactory jsonFactory;
+    private final InputStream inputStream;
+    private final JsonTradeReader reader;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private long bufferOffset; // Offset of the first byte of the buffer in the whole input
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    /**
+     * @param inputOffset offset of the stream in the whole input, for diagnostics
+     */
+    NdjsonTradeSpliterator(JsonFactory jsonFactory, InputStream inputStream, long inputOffset, RowIssueListener listener) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.jsonFactory = jsonFactory;
+        this.inputStream = inputStream;
+        this.bufferOffset = inputOffset;
+        this.reader = new JsonTradeReader(listener);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trade> action) {
+        while (true) {
+            int lineEnd = nextLineEnd();
+            if (lineEnd < 0) {
+                return false;
+            }
+            int lineStart = position;
+            position = lineEnd < limit ? lineEnd + 1 : lineEnd;
+            Trade trade = readLine(lineStart, lineEnd);
+            if (trade != null) {
+                action.accept(trade);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Parses the line between the given buffer indexes.
+     *
+     * @return the trade, or {@code null} if the line is blank or not a trade
+     */
+    private Trade readLine(int start, int end) {
+        long offset = bufferOffset + start;
+        try (JsonParser parser = jsonFactory.createParser(buffer, start, end - start)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            Trade trade = reader.read(parser, token, offset);
+            if (trade != null && parser.nextToken() != null) {
+                return reader.rejected(offset, "more than one value on the line");
+            }
+            return trade;
+        } catch (JsonProcessingException e) {
+            return reader.rejected(offset, "invalid JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the index of the line break ending the line at {@link #position}, reading more input as needed; the
+     * buffer limit if the input ends without one, or {@code -1} if there is no more input.
+     */
+    private int nextLineEnd() {
+        int scanned = 0;
+        while (true) {
+            for (int i = position + scanned; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return i;
+                }
+            }
+            scanned = limit - position;
+            if (eof) {
+                return scanned > 0 ? limit : -1;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer, growing it if a single line fills it, and reads more.
+     */
+    private void fill() {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            bufferOffset += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        try {
+            int count = inputStream.read(buffer, limit, buffer.length - limit);
+            if (count < 0) {
+                eof = true;
+            } else {
+                limit += count;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.peter.processor.io.importer;
+
+/**
+ * Problems found with individual input rows.
+ */
+public enum RowIssue {
+    /** The row could not be parsed into a trade and was skipped. */
+    MALFORMED_ROW(true),
+    /** The trade date does not match {@code app.date-format}; the trade was skipped. */
+    INVALID_DATE(true),
+    /** The product is unknown; the trade was exported with a placeholder name. */
+    MISSING_PRODUCT(false);
+
+    private final boolean rejected;
+
+    RowIssue(boolean rejected) {
+        this.rejected = rejected;
+    }
+
+    public boolean isRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the name used in metric tags and reports, e.g. {@code invalid_date}.
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,24 @@
+package org.peter.processor.io.importer;
+
+/**
+ * Receives the rows of a request that were rejected or could not be fully enriched. Called from the
+ * processing threads, so implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface RowIssueListener {
+
+    RowIssueListener NONE = (issue, row) -> {
+    };
+
+    /**
+     * @param row the offending row or value, for diagnostics
+     */
+    void onIssue(RowIssue issue, String row);
+
+    default RowIssueListener andThen(RowIssueListener next) {
+        return (issue, row) -> {
+            onIssue(issue, row);
+            next.onIssue(issue, row);
+        };
+    }
+}
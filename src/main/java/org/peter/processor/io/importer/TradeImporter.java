@@ -1,8 +1,13 @@
 package org.peter.processor.io.importer;
 
 
+import org.peter.processor.model.Trade;
+
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.stream.Stream;
 
 /**
@@ -14,9 +19,45 @@ public interface TradeImporter {
      * Imports trade data from a given string.
      *
      * @param inputStream The input stream of data to be processed
-     * @return A stream of maps, where each map represents a trade record with column names as keys.
+     * @return A stream of trades in input order.
+     */
+    Stream<Trade> importData(InputStream inputStream);
+
+    /**
+     * Imports trade data, reporting the rows that are skipped as malformed to the listener.
+     */
+    default Stream<Trade> importData(InputStream inputStream, RowIssueListener listener) {
+        return importData(inputStream);
+    }
+
+    /**
+     * Imports trade data from a file. Implementations may return a parallel stream whose spliterator splits the
+     * file into ordered chunks; the default reads the file sequentially.
+     *
+     * @param file The file to be processed
+     * @return A stream of trades in input order, closing the file when the stream is closed.
+     */
+    default Stream<Trade> importData(Path file) {
+        return importData(file, RowIssueListener.NONE);
+    }
+
+    /**
+     * Imports trade data from a file, reporting the rows that are skipped as malformed to the listener.
      */
-    Stream<Map<String, String>> importData(InputStream inputStream);
+    default Stream<Trade> importData(Path file, RowIssueListener listener) {
+        try {
+            InputStream inputStream = Files.newInputStream(file);
+            return importData(inputStream, listener).onClose(() -> {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
     /**
      * Returns the type of export format (e.g., "csv", "json", "xml").
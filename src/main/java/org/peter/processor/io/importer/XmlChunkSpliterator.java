@@ -0,0 +1,111 @@
+package org.peter.processor.io.importer;
+
+import org.peter.processor.model.Trade;
+
+import java.io.ByteArrayInputStream;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Ordered spliterator over a run of whole {@code <Trade>} elements held in memory. Like
+ * {@link CsvChunkSpliterator} it cuts the run on a record boundary, here the next {@code <Trade} start tag, so that
+ * every chunk is parsed on its own thread as an XML fragment. The run must not hold comments, CDATA sections or
+ * processing instructions, see {@link XmlStreamSpliterator}.
+ */
+class XmlChunkSpliterator implements Spliterator<Trade> {
+    static final int ESTIMATED_ROW_BYTES = 100;
+    private static final int MIN_SPLIT_BYTES = 64 * 1024;
+    private static final byte[] RECORD_START = {'<', 'T', 'r', 'a', 'd', 'e'};
+
+    private final byte[] bytes;
+    private final long inputOffset;
+    private final RowIssueListener listener;
+    private final int end;
+    private int position;
+
+    private XmlTradeSpliterator records;
+
+    /**
+     * @param inputOffset offset of {@code bytes[0]} in the whole input, for diagnostics
+     */
+    XmlChunkSpliterator(byte[] bytes, int start, int end, long inputOffset, RowIssueListener listener) {
+        this.bytes = bytes;
+        this.position = start;
+        this.end = end;
+        this.inputOffset = inputOffset;
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trade> action) {
+        if (records == null) {
+            records = new XmlTradeSpliterator(new ByteArrayInputStream(bytes, position, end - position), true,
+                    inputOffset + position, listener);
+        }
+        return records.tryAdvance(action);
+    }
+
+    @Override
+    public Spliterator<Trade> trySplit() {
+        int remaining = end - position;
+        if (records != null || remaining < 2 * MIN_SPLIT_BYTES) {
+            return null;
+        }
+        int split = nextRecordStart(bytes, position + remaining / 2, end);
+        if (split < 0) {
+            return null;
+        }
+        XmlChunkSpliterator prefix = new XmlChunkSpliterator(bytes, position, split, inputOffset, listener);
+        position = split;
+        return prefix;
+    }
+
+    /**
+     * Estimated from the remaining bytes, so that callers can size chunks in rows.
+     */
+    @Override
+    public long estimateSize() {
+        int remaining = records == null ? end - position : 0;
+        return remaining > 0 ? Math.max(1, remaining / ESTIMATED_ROW_BYTES) : 0;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Returns the index of the first {@code <Trade>} start tag in the range, or -1 if there is none. The byte
+     * after the name must be in the range, so that {@code <Trades>} is told apart.
+     */
+    static int nextRecordStart(byte[] bytes, int from, int to) {
+        for (int i = from; i <= to - RECORD_START.length - 1; i++) {
+            if (isRecordStart(bytes, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last {@code <Trade>} start tag in the range, or -1 if there is none.
+     */
+    static int lastRecordStart(byte[] bytes, int from, int to) {
+        for (int i = to - RECORD_START.length - 1; i >= from; i--) {
+            if (isRecordStart(bytes, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isRecordStart(byte[] bytes, int index) {
+        for (int i = 0; i < RECORD_START.length; i++) {
+            if (bytes[index + i] != RECORD_START[i]) {
+                return false;
+            }
+        }
+        byte next = bytes[index + RECORD_START.length];
+        return next == '>' || next == '/' || next == ' ' || next == '\t' || next == '\r' || next == '\n';
+    }
+}
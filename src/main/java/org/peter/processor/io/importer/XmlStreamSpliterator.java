@@ -0,0 +1,225 @@
+package org.peter.processor.io.importer;
+
+import org.peter.processor.model.Trade;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ordered spliterator over the trades of an XML document that cuts the input into {@link XmlChunkSpliterator}s of
+ * whole {@code <Trade>} elements while it reads it, so that chunks are parsed on their own threads as soon as they
+ * have been read. Only the prolog up to the first trade and the end of the document are parsed on the reading
+ * thread.
+ * <p>
+ * Cuts are made at {@code <Trade} start tags found in the bytes, which is only safe in plain elements: inside a
+ * comment, CDATA section or processing instruction the same bytes are text. Once a chunk would hold one of these,
+ * the rest of the document is parsed on one thread instead.
+ */
+class XmlStreamSpliterator implements Spliterator<Trade> {
+    static final int CHUNK_BYTES = 1024 * 1024;
+    private static final byte[] ROOT_START = ("<" + XmlTradeSpliterator.ROOT + ">").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ROOT_END = ("</" + XmlTradeSpliterator.ROOT).getBytes(StandardCharsets.US_ASCII);
+    private static final Pattern ENCODING = Pattern.compile("encoding\\s*=\\s*[\"']([^\"']*)[\"']");
+
+    private final InputStream inputStream;
+    private final RowIssueListener listener;
+    private byte[] buffer = new byte[CHUNK_BYTES];
+    private int length;
+    private long bufferOffset; // Offset of the buffer in the input
+    private boolean eof;
+    private boolean ended;
+
+    private Spliterator<Trade> current;
+
+    XmlStreamSpliterator(InputStream inputStream, RowIssueListener listener) {
+        this.inputStream = inputStream;
+        this.listener = listener;
+    }
+
+    /**
+     * Reads the input up to the first trade and parses that prolog, which must open the {@code <Trades>} root.
+     *
+     * @return {@code false} if the document has to be parsed as a whole from {@link #remainingInput()}, e.g. because
+     * it has a DTD, namespace prefixes, another encoding than UTF-8, no trades in the first chunk or is not valid
+     */
+    boolean readProlog() throws IOException {
+        fill();
+        int firstRecord = XmlChunkSpliterator.nextRecordStart(buffer, 0, length);
+        if (firstRecord < 0 || !isSplittable(new String(buffer, 0, firstRecord, StandardCharsets.ISO_8859_1))) {
+            return false;
+        }
+        byte[] closedProlog = Arrays.copyOf(buffer, firstRecord + ROOT_END.length + 1);
+        System.arraycopy(ROOT_END, 0, closedProlog, firstRecord, ROOT_END.length);
+        closedProlog[closedProlog.length - 1] = '>';
+        try {
+            new XmlTradeSpliterator(new ByteArrayInputStream(closedProlog), false, 0, listener).forEachRemaining(trade -> {
+                // Elements before the first trade are never trades
+            });
+        } catch (UncheckedIOException e) {
+            return false; // Parsed as a whole to fail with the location in the document
+        }
+        consume(firstRecord);
+        return true;
+    }
+
+    /**
+     * Returns the input that has not been cut into chunks yet, including what has been read ahead.
+     */
+    InputStream remainingInput() {
+        return new SequenceInputStream(new ByteArrayInputStream(buffer, 0, length), inputStream);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trade> action) {
+        while (true) {
+            if (current != null && current.tryAdvance(action)) {
+                return true;
+            }
+            current = nextChunk();
+            if (current == null) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<Trade> trySplit() {
+        return current == null ? nextChunk() : null;
+    }
+
+    /**
+     * Unknown until the input has been read; callers keep splitting until then.
+     */
+    @Override
+    public long estimateSize() {
+        return ended && current == null ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Reads the next chunk of at least {@link #CHUNK_BYTES}, ending before a {@code <Trade} start tag or before the
+     * end of the root element; the rest of the document if that chunk holds markup other than elements;
+     * {@code null} at the end of the document.
+     */
+    private Spliterator<Trade> nextChunk() {
+        try {
+            if (ended) {
+                return null;
+            }
+            int end = -1;
+            while (end <= 0 && !eof) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2); // A record longer than a chunk
+                }
+                fill();
+                end = eof ? -1 : XmlChunkSpliterator.lastRecordStart(buffer, 0, length);
+            }
+            if (hasNonElementMarkup(buffer, eof ? length : end)) {
+                return restOfDocument();
+            }
+            if (eof) {
+                end = rootEnd();
+                ended = true;
+            }
+            XmlChunkSpliterator chunk = new XmlChunkSpliterator(Arrays.copyOf(buffer, end), 0, end, bufferOffset, listener);
+            consume(end);
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a sequential spliterator over the input that has not been cut into chunks yet. All chunks so far held
+     * whole elements only, so the input continues with the next trade and is parsed as the rest of the root.
+     */
+    private Spliterator<Trade> restOfDocument() {
+        ended = true;
+        InputStream rest = new SequenceInputStream(new ByteArrayInputStream(ROOT_START), remainingInput());
+        return new XmlTradeSpliterator(rest, false, bufferOffset - ROOT_START.length, listener);
+    }
+
+    /**
+     * Whether the bytes hold a comment, CDATA section or processing instruction, i.e. {@code <!} or {@code <?}.
+     */
+    private static boolean hasNonElementMarkup(byte[] bytes, int to) {
+        for (int i = 0; i < to - 1; i++) {
+            if (bytes[i] == '<' && (bytes[i + 1] == '!' || bytes[i + 1] == '?')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the end tag of the root in the rest of the input and checks that nothing but comments and whitespace
+     * follow it.
+     */
+    private int rootEnd() {
+        int end = -1;
+        for (int i = length - ROOT_END.length; i >= 0 && end < 0; i--) {
+            if (Arrays.equals(buffer, i, i + ROOT_END.length, ROOT_END, 0, ROOT_END.length)) {
+                end = i;
+            }
+        }
+        if (end < 0) {
+            throw new UncheckedIOException(new IOException(
+                    "Invalid XML: the input ends before the end of the <" + XmlTradeSpliterator.ROOT + "> element"));
+        }
+        InputStream epilog = new SequenceInputStream(new ByteArrayInputStream(ROOT_START),
+                new ByteArrayInputStream(buffer, end, length - end));
+        new XmlTradeSpliterator(epilog, false, bufferOffset + end, listener).forEachRemaining(trade -> {
+            // Holds no elements
+        });
+        return end;
+    }
+
+    /**
+     * Reads until the buffer is full or the input ends.
+     */
+    private void fill() throws IOException {
+        while (length < buffer.length && !eof) {
+            int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                eof = true;
+            } else {
+                length += read;
+            }
+        }
+    }
+
+    private void consume(int count) {
+        System.arraycopy(buffer, count, buffer, 0, length - count);
+        length -= count;
+        bufferOffset += count;
+    }
+
+    /**
+     * Whether the fragments after the prolog can be parsed on their own, as UTF-8 without declarations.
+     */
+    private static boolean isSplittable(String prolog) {
+        if (prolog.contains("<!DOCTYPE") || prolog.contains("xmlns:")) {
+            return false;
+        }
+        Matcher encoding = ENCODING.matcher(prolog);
+        if (!encoding.find()) {
+            return true;
+        }
+        String name = encoding.group(1).toUpperCase(Locale.ROOT);
+        return name.equals("UTF-8") || name.equals("UTF8") || name.equals("US-ASCII");
+    }
+}
@@ -1,55 +1,46 @@
 package org.peter.processor.io.importer;
 
-import com.fasterxml.jackson.databind.MappingIterator;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import lombok.extern.slf4j.Slf4j;
 import org.peter.processor.io.ProcessType;
+import org.peter.processor.model.Trade;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map;
-import java.util.Spliterator;
-import java.util.Spliterators;
-import java.util.function.Consumer;
+import java.io.UncheckedIOException;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-@Slf4j
+/**
+ * Reads trades from a {@code <Trades>} document with a StAX cursor, see {@link XmlTradeSpliterator}. The input is
+ * cut into chunks of whole {@code <Trade>} elements while it is read, so the returned stream is parallel and the
+ * chunks are parsed next to the enrichment; documents that cannot be cut are read on one thread.
+ */
 @Service
 public class XmlTradeImporter implements TradeImporter {
-    private final XmlMapper xmlMapper = new XmlMapper();
 
     @Override
-    public Stream<Map<String, String>> importData(InputStream inputStream) {
-        return StreamSupport.stream(new XmlTradeSpliterator(inputStream, xmlMapper), false);
+    public Stream<Trade> importData(InputStream inputStream) {
+        return importData(inputStream, RowIssueListener.NONE);
     }
 
+    /**
+     * Reads the input up to the first trade before returning.
+     */
     @Override
-    public String getType() {
-        return ProcessType.XML.getType();
-    }
-
-    private static class XmlTradeSpliterator extends Spliterators.AbstractSpliterator<Map<String, String>> {
-        private final MappingIterator<Map<String, String>> iterator;
-
-        public XmlTradeSpliterator(InputStream inputStream, XmlMapper xmlMapper) {
-            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
-            try {
-                iterator = xmlMapper.readerFor(Map.class)
-                        .readValues(inputStream);
-            } catch (Exception e) {
-                log.error("Error parsing XML {}", e.getMessage());
-                throw new RuntimeException("Error parsing XML", e);
+    public Stream<Trade> importData(InputStream inputStream, RowIssueListener listener) {
+        try {
+            XmlStreamSpliterator chunks = new XmlStreamSpliterator(inputStream, listener);
+            if (chunks.readProlog()) {
+                return StreamSupport.stream(chunks, true);
             }
+            return StreamSupport.stream(new XmlTradeSpliterator(chunks.remainingInput(), false, 0, listener), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        @Override
-        public boolean tryAdvance(Consumer<? super Map<String, String>> action) {
-            if (!iterator.hasNext()) {
-                return false;
-            }
-            action.accept(iterator.next());
-            return true;
-        }
+    @Override
+    public String getType() {
+        return ProcessType.XML.getType();
     }
-}
\ No newline at end of file
+}
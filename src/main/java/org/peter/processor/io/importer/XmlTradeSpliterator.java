@@ -0,0 +1,208 @@
+package org.peter.processor.io.importer;
+
+import com.ctc.wstx.api.WstxInputProperties;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.peter.processor.model.Trade;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Reads trades from a StAX cursor: every {@code <Trade>} element becomes one trade, read from the text of its
+ * date, productId, currency and price children; other children are skipped and no DOM or maps are built. Records
+ * that are not trades, lack a field or hold markup in one are reported and skipped, while input that is not
+ * well-formed XML fails with its location.
+ */
+class XmlTradeSpliterator extends Spliterators.AbstractSpliterator<Trade> {
+    static final String ROOT = "Trades";
+    private static final String RECORD = "Trade";
+    private static final String[] FIELDS = {"date", "productId", "currency", "price"};
+    private static final XMLInputFactory DOCUMENT_FACTORY = inputFactory(false);
+    private static final XMLInputFactory FRAGMENT_FACTORY = inputFactory(true);
+
+    private final InputStream inputStream;
+    private final boolean fragment;
+    private final long inputOffset;
+    private final RowIssueListener listener;
+    private final String[] values = new String[FIELDS.length];
+    private XMLStreamReader2 reader;
+    private int depth;
+
+    /**
+     * @param fragment    whether the input is a run of {@code <Trade>} elements cut out of a document; otherwise it is
+     *                    a whole document with a {@code <Trades>} root
+     * @param inputOffset offset of the stream in the whole input, for diagnostics; records are reported at this
+     *                    offset plus their character offset in the stream, which is their byte offset in ASCII input
+     */
+    XmlTradeSpliterator(InputStream inputStream, boolean fragment, long inputOffset, RowIssueListener listener) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.inputStream = inputStream;
+        this.fragment = fragment;
+        this.inputOffset = inputOffset;
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trade> action) {
+        try {
+            if (reader == null) {
+                // Fragments are cut from UTF-8 input, a document declares its own encoding
+                reader = (XMLStreamReader2) (fragment
+                        ? FRAGMENT_FACTORY.createXMLStreamReader(inputStream, "UTF-8")
+                        : DOCUMENT_FACTORY.createXMLStreamReader(inputStream));
+            }
+            int recordDepth = fragment ? 1 : 2;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                } else if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (++depth < recordDepth) {
+                        checkRoot();
+                        continue;
+                    }
+                    Trade trade = readTrade();
+                    if (trade != null) {
+                        action.accept(trade);
+                        return true;
+                    }
+                }
+            }
+            reader.close(); // Returns the buffers, the input stays open
+            return false;
+        } catch (XMLStreamException e) {
+            String position = fragment ? " in the part from byte " + inputOffset : "";
+            throw new UncheckedIOException("Invalid XML" + position + ": " + e.getMessage(), new IOException(e));
+        }
+    }
+
+    private void checkRoot() throws XMLStreamException {
+        if (!ROOT.equals(reader.getLocalName())) {
+            throw new XMLStreamException("XML trades must be in a <" + ROOT + "> root element, found <"
+                    + reader.getLocalName() + ">", reader.getLocation());
+        }
+    }
+
+    /**
+     * Reads the record whose start tag is the current event, up to and including its end tag.
+     *
+     * @return the trade, or {@code null} if the record is not a trade; it is reported and skipped
+     */
+    private Trade readTrade() throws XMLStreamException {
+        long offset = inputOffset + reader.getLocationInfo().getStartingCharOffset();
+        depth--; // The record is read to its end tag here
+        if (!RECORD.equals(reader.getLocalName())) {
+            String name = reader.getLocalName();
+            skipElement();
+            return rejected(offset, "not a trade: <" + name + ">");
+        }
+
+        Arrays.fill(values, null);
+        String nestedField = null;
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            int field = fieldIndex(reader.getLocalName());
+            if (field < 0) {
+                skipElement(); // Not a trade field
+            } else if ((values[field] = text()) == null) {
+                nestedField = FIELDS[field];
+            }
+        }
+
+        if (nestedField != null) {
+            return rejected(offset, "nested element in " + nestedField);
+        }
+        for (String value : values) {
+            if (value == null) {
+                return rejected(offset, "missing field");
+            }
+        }
+        return Trade.of(values[0], values[1], values[2], values[3]);
+    }
+
+    /**
+     * Reads the text of the current element up to its end tag; an empty element has empty text.
+     *
+     * @return the text, or {@code null} if the element holds other elements
+     */
+    private String text() throws XMLStreamException {
+        String text = "";
+        StringBuilder pieces = null;
+        boolean nested = false;
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                skipElement();
+                nested = true;
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                if (text.isEmpty()) {
+                    text = reader.getText();
+                } else {
+                    // The parser may hand out long text in pieces
+                    pieces = pieces != null ? pieces : new StringBuilder(text);
+                    pieces.append(reader.getText());
+                }
+            }
+        }
+        if (nested) {
+            return null;
+        }
+        return pieces != null ? pieces.toString() : text;
+    }
+
+    /**
+     * Moves the cursor past the end tag of the current element.
+     */
+    private void skipElement() throws XMLStreamException {
+        int open = 1;
+        while (open > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                open++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                open--;
+            }
+        }
+    }
+
+    private Trade rejected(long offset, String reason) {
+        listener.onIssue(RowIssue.MALFORMED_ROW, "record at offset " + offset + ": " + reason);
+        return null;
+    }
+
+    private static int fieldIndex(String name) {
+        return switch (name) {
+            case "date" -> 0;
+            case "productId" -> 1;
+            case "currency" -> 2;
+            case "price" -> 3;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Creates a Woodstox factory without DTD support, so documents cannot pull in external entities.
+     */
+    private static XMLInputFactory inputFactory(boolean fragment) {
+        XMLInputFactory factory = new XmlFactory().getXMLInputFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        if (fragment) {
+            factory.setProperty(WstxInputProperties.P_INPUT_PARSING_MODE, WstxInputProperties.PARSING_MODE_FRAGMENT);
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,93 @@
+package org.peter.processor.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A single trade flowing from the importers through enrichment to the exporters.
+ * <p>
+ * Numeric product ids are kept as a primitive {@code int}; the original text is only retained for
+ * ids that are not plain numbers. The price is carried as the unparsed text from the input since it
+ * is never used in calculations, and the date is validated against {@code app.date-format} later on.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class Trade {
+
+    public static final int NON_NUMERIC_ID = -1;
+
+    private final String date;
+    private final int productId;
+    private final String productIdText;
+    private final String currency;
+    private final String price;
+
+    @Setter
+    private String productName;
+
+    private Trade(String date, int productId, String productIdText, String currency, String price) {
+        this.date = date;
+        this.productId = productId;
+        this.productIdText = productIdText;
+        this.currency = currency;
+        this.price = price;
+    }
+
+    /**
+     * Creates a trade from the raw field values of an input record.
+     *
+     * @param productId the product id as text; parsed into a primitive when it is a plain number
+     */
+    public static Trade of(String date, String productId, String currency, String price) {
+        int numericId = parseProductId(productId);
+        if (numericId != NON_NUMERIC_ID) {
+            return new Trade(date, numericId, null, currency, price);
+        }
+        return new Trade(date, NON_NUMERIC_ID, productId != null ? productId : "", currency, price);
+    }
+
+    /**
+     * Creates a trade whose product id has already been parsed, e.g. straight from the input bytes.
+     *
+     * @param productId a non-negative id as accepted by {@link #parseProductId(String)}
+     */
+    public static Trade of(String date, int productId, String currency, String price) {
+        if (productId < 0) {
+            throw new IllegalArgumentException("Invalid product id: " + productId);
+        }
+        return new Trade(date, productId, null, currency, price);
+    }
+
+    /**
+     * Returns the product id as used for the catalogue lookup.
+     */
+    public String getProductKey() {
+        return productIdText != null ? productIdText : Integer.toString(productId);
+    }
+
+    public boolean hasNumericProductId() {
+        return productId != NON_NUMERIC_ID;
+    }
+
+    /**
+     * Parses ids made of ASCII digits only, without leading zeros, so that the textual form
+     * can be restored exactly. Anything else is reported as {@link #NON_NUMERIC_ID}.
+     */
+    public static int parseProductId(String text) {
+        if (text == null || text.isEmpty() || text.length() > 9 || (text.length() > 1 && text.charAt(0) == '0')) {
+            return NON_NUMERIC_ID;
+        }
+        int value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return NON_NUMERIC_ID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
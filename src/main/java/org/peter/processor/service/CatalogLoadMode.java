@@ -0,0 +1,16 @@
+package org.peter.processor.service;
+
+/**
+ * When the products are loaded into Redis at startup ({@code app.catalog.load.mode}).
+ */
+public enum CatalogLoadMode {
+    /**
+     * Before the application starts; startup fails if the products cannot be loaded.
+     */
+    BLOCKING,
+    /**
+     * On a background thread, so the application starts while the products are loaded; the readiness probe is
+     * down until the load has finished.
+     */
+    BACKGROUND
+}
@@ -0,0 +1,15 @@
+package org.peter.processor.service;
+
+/**
+ * How the products are written to Redis at startup ({@code app.catalog.load.sync}).
+ */
+public enum CatalogSyncMode {
+    /**
+     * Every product is written with {@code SET}.
+     */
+    FULL,
+    /**
+     * Only the products that changed since the last sync are written or deleted, see {@link ProductsSync}.
+     */
+    INCREMENTAL
+}
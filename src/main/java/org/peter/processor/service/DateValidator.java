@@ -0,0 +1,134 @@
+package org.peter.processor.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Validates trade dates against {@code app.date-format}, with the same results as
+ * {@code LocalDate.parse(date, DateTimeFormatter.ofPattern(dateFormat))}.
+ * <p>
+ * Patterns made only of {@code yyyy}, {@code MM}, {@code dd} and literal separators (e.g. {@code yyyyMMdd})
+ * accept well-formed dates by checking the digits in place, without allocating. Everything else goes through
+ * the precompiled formatter, and the most recently accepted dates are remembered since trade files repeat
+ * the same few dates.
+ */
+@Component
+public class DateValidator {
+    private static final int CACHE_SIZE = 64; // Power of two, slots are picked by hash
+
+    private final DateTimeFormatter formatter;
+    private final NumericPattern numericPattern;
+    private final String[] recentDates = new String[CACHE_SIZE];
+
+    public DateValidator(@Value("${app.date-format}") String dateFormat) {
+        this.formatter = DateTimeFormatter.ofPattern(dateFormat);
+        this.numericPattern = NumericPattern.compile(dateFormat);
+    }
+
+    public boolean isValid(String date) {
+        if (date == null) {
+            return false;
+        }
+        if (numericPattern != null && numericPattern.matches(date)) {
+            return true;
+        }
+
+        int slot = date.hashCode() & (CACHE_SIZE - 1);
+        if (date.equals(recentDates[slot])) {
+            return true;
+        }
+        if (!parses(date)) {
+            return false;
+        }
+        recentDates[slot] = date; // Racy by design, a lost update only costs another parse
+        return true;
+    }
+
+    private boolean parses(String date) {
+        ParsePosition position = new ParsePosition(0);
+        if (formatter.parseUnresolved(date, position) == null || position.getIndex() != date.length()) {
+            return false; // Malformed, rejected without throwing
+        }
+        try {
+            LocalDate.parse(date, formatter); // Resolves the fields, e.g. rejects month 13
+            return true;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Digit positions of a fixed-width numeric pattern. Only accepts dates the formatter accepts too; with the
+     * default smart resolver that is any year from 1, month 1-12 and day 1-31 (days past the end of the month
+     * are clamped by the formatter). Anything it does not accept is left to the formatter.
+     */
+    private record NumericPattern(String pattern, int yearOffset, int monthOffset, int dayOffset) {
+
+        static NumericPattern compile(String pattern) {
+            int year = -1;
+            int month = -1;
+            int day = -1;
+
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c == '\'' || "[]{}#".indexOf(c) >= 0 || Character.isDigit(c)) {
+                    return null; // Quoted text, optional sections and reserved characters
+                }
+                if (!Character.isLetter(c)) {
+                    i++;
+                    continue;
+                }
+
+                int run = i;
+                while (run < pattern.length() && pattern.charAt(run) == c) {
+                    run++;
+                }
+                int length = run - i;
+                if (c == 'y' && length == 4 && year < 0) {
+                    year = i;
+                } else if (c == 'M' && length == 2 && month < 0) {
+                    month = i;
+                } else if (c == 'd' && length == 2 && day < 0) {
+                    day = i;
+                } else {
+                    return null;
+                }
+                i = run;
+            }
+
+            return year >= 0 && month >= 0 && day >= 0 ? new NumericPattern(pattern, year, month, day) : null;
+        }
+
+        boolean matches(String date) {
+            if (date.length() != pattern.length()) {
+                return false;
+            }
+            for (int i = 0; i < date.length(); i++) {
+                char expected = pattern.charAt(i);
+                char actual = date.charAt(i);
+                if (Character.isLetter(expected) ? actual < '0' || actual > '9' : actual != expected) {
+                    return false;
+                }
+            }
+
+            int year = digits(date, yearOffset, 4);
+            int month = digits(date, monthOffset, 2);
+            int day = digits(date, dayOffset, 2);
+            return year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= 31;
+        }
+
+        private static int digits(String date, int offset, int count) {
+            int value = 0;
+            for (int i = offset; i < offset + count; i++) {
+                value = value * 10 + (date.charAt(i) - '0');
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.peter.processor.service;
+
+/**
+ * How batch work is scheduled ({@code app.processing.execution}).
+ */
+public enum ExecutionMode {
+    /**
+     * A fixed pool of {@code app.thread-count} platform threads with a bounded queue.
+     */
+    PLATFORM,
+    /**
+     * One virtual thread per batch; blocking Redis calls are capped by {@link RedisCallLimiter} instead of the pool size.
+     */
+    VIRTUAL
+}
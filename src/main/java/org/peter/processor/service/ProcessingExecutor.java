@@ -0,0 +1,141 @@
+package org.peter.processor.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.peter.processor.exception.ProcessingCapacityException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Application-wide executor for batch processing, shared by all requests.
+ * <p>
+ * In {@link ExecutionMode#PLATFORM} mode it is a pool of {@code app.thread-count} threads with a bounded queue;
+ * in {@link ExecutionMode#VIRTUAL} mode every batch runs on its own virtual thread. Either way the number of
+ * jobs running at the same time is capped by {@code app.processing.max-concurrent-requests}; jobs beyond that
+ * are rejected with {@link ProcessingCapacityException} instead of oversubscribing the executor.
+ * <p>
+ * In both modes the admitted jobs and the batches submitted but not finished are published as the
+ * {@code processing.jobs.active} and {@code processing.tasks.in-flight} gauges. The pool of the platform mode is
+ * also published as {@code executor.*} metrics tagged with {@code name=processing}; Micrometer cannot bind the
+ * virtual-thread executor.
+ */
+@Slf4j
+@Component
+public class ProcessingExecutor {
+
+    private static final String NAME = "processing";
+
+    private final ExecutorService executor;
+    private final Semaphore jobPermits;
+    private final int maxConcurrentJobs;
+    private final AtomicInteger tasksInFlight = new AtomicInteger();
+
+    public ProcessingExecutor(@Value("${app.thread-count}") int threadCount,
+                              @Value("${app.processing.queue-capacity}") int queueCapacity,
+                              @Value("${app.processing.max-concurrent-requests}") int maxConcurrentJobs,
+                              @Value("${app.processing.execution}") ExecutionMode executionMode,
+                              MeterRegistry meterRegistry) {
+        this.executor = executionMode == ExecutionMode.VIRTUAL
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(NAME + "-", 1).factory())
+                : ExecutorServiceMetrics.monitor(meterRegistry,
+                        new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                                new ArrayBlockingQueue<>(queueCapacity),
+                                Thread.ofPlatform().name(NAME + "-", 1).factory(),
+                                new ThreadPoolExecutor.AbortPolicy()),
+                        NAME);
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.jobPermits = new Semaphore(maxConcurrentJobs);
+
+        Gauge.builder("processing.jobs.active", () -> maxConcurrentJobs - jobPermits.availablePermits())
+                .description("Processing jobs currently admitted")
+                .register(meterRegistry);
+        Gauge.builder("processing.tasks.in-flight", tasksInFlight, AtomicInteger::get)
+                .description("Batches submitted to the processing executor and not finished yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a new processing job, or rejects it when the maximum number of concurrent jobs is already running.
+     *
+     * @return the permit to close once the job has finished
+     * @throws ProcessingCapacityException when no capacity is left
+     */
+    public Permit admit() {
+        if (!jobPermits.tryAcquire()) {
+            throw new ProcessingCapacityException(
+                    "Too many concurrent processing jobs (limit " + maxConcurrentJobs + "), retry later");
+        }
+        return jobPermits::release;
+    }
+
+    /**
+     * Admits a new processing job, waiting for a running one to finish when the maximum is reached. Meant for
+     * background work; interactive requests are admitted ahead of waiting jobs.
+     *
+     * @return the permit to close once the job has finished
+     */
+    public Permit awaitAdmission() throws InterruptedException {
+        jobPermits.acquire();
+        return jobPermits::release;
+    }
+
+    /**
+     * Returns the executor batches are submitted to.
+     */
+    public Executor executor() {
+        return this::execute;
+    }
+
+    private void execute(Runnable task) {
+        tasksInFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    tasksInFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            tasksInFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Forcing executor shutdown...");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            log.warn("Executor interrupted, forcing shutdown...");
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Admission of a single job; closing it frees the slot for the next one.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,12 @@
+package org.peter.processor.service;
+
+/**
+ * Outcome of an incremental products sync.
+ *
+ * @param products       products in the file
+ * @param changedBuckets buckets whose fingerprint differed from the one in Redis
+ * @param written        products whose name was written
+ * @param deleted        products deleted because they are no longer in the file
+ */
+public record ProductSyncResult(int products, int changedBuckets, int written, int deleted, long durationMillis) {
+}
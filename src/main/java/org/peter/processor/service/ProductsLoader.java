@@ -3,27 +3,45 @@ package org.peter.processor.service;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.peter.processor.io.CsvTokenizer;
+import org.peter.processor.service.catalog.CatalogHealthIndicator;
+import org.peter.processor.service.catalog.ProductCatalogReloadedEvent;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+/**
+ * Loads the products file into Redis. The reading thread only cuts the file into blocks of whole lines; each block
+ * is parsed and written with pipelined {@code SET}s of {@code app.batch-size} products on a worker, with at most
+ * {@code app.catalog.load.max-in-flight-blocks} blocks in memory. Product names must not contain line breaks.
+ * {@code app.products-file} is a resource location, e.g. {@code classpath:products.csv} or
+ * {@code file:/data/products.csv}. Progress is reported through {@link CatalogHealthIndicator}. With {@code app.catalog.load.sync=incremental} only
+ * the changes are written instead, see {@link ProductsSync}; a sync can also be started at runtime.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.catalog.backend", havingValue = "redis", matchIfMissing = true)
 public class ProductsLoader {
+    private static final int BLOCK_BYTES = 256 * 1024;
 
     @Value("${app.batch-size}")
     private int batchSize;
@@ -32,64 +50,188 @@ public class ProductsLoader {
     private int threadCount;
 
     @Value("${app.products-file}")
-    private String productsFile;
+    private Resource productsFile; // Opened anew by every load, so a sync sees the current file
+
+    @Value("${app.processing.execution}")
+    private ExecutionMode executionMode;
+
+    @Value("${app.catalog.load.mode}")
+    private CatalogLoadMode loadMode;
+
+    @Value("${app.catalog.load.max-in-flight-blocks}")
+    private int maxInFlightBlocks;
+
+    @Value("${app.catalog.load.sync}")
+    private CatalogSyncMode syncMode;
 
     private final StringRedisTemplate redisTemplate;
+    private final RedisCallLimiter redisCallLimiter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TradeMetrics tradeMetrics;
+    private final CatalogHealthIndicator catalogHealth;
+    private final ProductsSync productsSync;
 
     @PostConstruct
-    public void loadProductsIntoRedis() {
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
-        List<Future<Void>> futures = new ArrayList<>();
-
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(
-                new ClassPathResource(productsFile).getInputStream(), StandardCharsets.UTF_8))) {
-
-            br.readLine(); // Skip header
-            List<String[]> batch = new ArrayList<>();
-
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] columns = line.split(",");
-                if (columns.length == 2) {
-                    batch.add(new String[]{columns[0].trim(), columns[1].trim()});
-                } else {
-                    log.warn("Skipping invalid line: {}", line);
+    public void start() {
+        if (loadMode == CatalogLoadMode.BACKGROUND) {
+            Thread.ofPlatform().name("products-loader").daemon().start(this::loadInBackground);
+        } else {
+            load();
+        }
+    }
+
+    public synchronized void loadProductsIntoRedis() {
+        ExecutorService executor = executionMode == ExecutionMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(threadCount);
+        Deque<Future<Integer>> inFlight = new ArrayDeque<>();
+        long start = System.nanoTime();
+        int loaded = 0;
+
+        try (InputStream inputStream = productsFile.getInputStream()) {
+
+            byte[] buffer = new byte[BLOCK_BYTES];
+            int length = 0;
+            boolean header = true;
+            boolean eof = false;
+
+            while (!eof) {
+                int read = inputStream.readNBytes(buffer, length, buffer.length - length);
+                length += read;
+                eof = length < buffer.length;
+                int end = eof ? length : lastLineEnd(buffer, length);
+                if (end == 0) {
+                    if (!eof) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2); // A line longer than a block
+                    }
+                    continue;
                 }
 
-                if (batch.size() >= batchSize) {
-                    futures.add(processBatchAsync(new ArrayList<>(batch), executor));
-                    batch.clear();
+                byte[] block = Arrays.copyOf(buffer, end);
+                boolean hasHeader = header;
+                inFlight.add(executor.submit(() -> loadBlock(block, hasHeader)));
+                header = false;
+                System.arraycopy(buffer, end, buffer, 0, length - end);
+                length -= end;
+
+                while (inFlight.size() >= maxInFlightBlocks) {
+                    loaded += inFlight.poll().get();
+                    catalogHealth.progress(loaded);
                 }
             }
 
-            if (!batch.isEmpty()) {
-                futures.add(processBatchAsync(batch, executor));
+            while (!inFlight.isEmpty()) {
+                loaded += inFlight.poll().get(); // Ensure all tasks are completed
             }
 
-            for (Future<Void> future : futures) {
-                future.get(); // Ensure all tasks are completed
-            }
+            tradeMetrics.productsLoaded(loaded, System.nanoTime() - start);
+            catalogHealth.ready(loaded);
+            log.info("Loaded {} products into Redis.", loaded);
+            eventPublisher.publishEvent(new ProductCatalogReloadedEvent());
 
-        } catch (IOException | InterruptedException | ExecutionException e) {
+        } catch (IOException | UncheckedIOException | InterruptedException | ExecutionException e) {
             log.error("Error processing product file: {}", e.getMessage(), e);
+            catalogHealth.failed(e);
             throw new RuntimeException("Error reading product CSV file", e);
         } finally {
             executor.shutdown();
         }
     }
 
-    private Future<Void> processBatchAsync(List<String[]> batch, ExecutorService executor) {
-        return executor.submit(() -> {
-            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
-                for (String[] data : batch) {
-                    connection.set(data[0].getBytes(StandardCharsets.UTF_8),
-                            data[1].getBytes(StandardCharsets.UTF_8));
-                }
-                return null;
-            });
+    /**
+     * Writes the changes of the products file to Redis; waits for a load that is already running.
+     */
+    public synchronized ProductSyncResult syncProductsIntoRedis() {
+        long start = System.nanoTime();
+        try (InputStream inputStream = productsFile.getInputStream()) {
+
+            ProductSyncResult result = productsSync.sync(inputStream);
+            tradeMetrics.productsSynced(result.written(), result.deleted());
+            tradeMetrics.productsLoaded(result.products(), System.nanoTime() - start);
+            catalogHealth.ready(result.products());
+            log.info("Synced {} products into Redis: {} buckets changed, {} written, {} deleted.",
+                    result.products(), result.changedBuckets(), result.written(), result.deleted());
+            if (result.written() > 0 || result.deleted() > 0) {
+                eventPublisher.publishEvent(new ProductCatalogReloadedEvent());
+            }
+            return result;
+
+        } catch (IOException | RuntimeException e) {
+            log.error("Error syncing product file: {}", e.getMessage(), e);
+            catalogHealth.failed(e);
+            throw new RuntimeException("Error syncing product CSV file", e);
+        }
+    }
 
-            log.info("Processed batch of {} products.", batch.size());
+    private void load() {
+        if (syncMode == CatalogSyncMode.INCREMENTAL) {
+            syncProductsIntoRedis();
+        } else {
+            loadProductsIntoRedis();
+        }
+    }
+
+    private void loadInBackground() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Products were not loaded, the catalogue health stays down"); // The cause is logged above
+        }
+    }
+
+    /**
+     * Parses a block of whole lines and writes its products to Redis.
+     *
+     * @return the number of products written
+     */
+    private int loadBlock(byte[] block, boolean hasHeader) {
+        CsvTokenizer products = new CsvTokenizer(ByteBuffer.wrap(block));
+        if (hasHeader) {
+            products.nextRecord();
+        }
+        List<byte[][]> batch = new ArrayList<>();
+        int loaded = 0;
+
+        while (products.nextRecord()) {
+            if (products.fieldCount() == 2) {
+                batch.add(new byte[][]{products.fieldBytes(0), products.fieldBytes(1)});
+                loaded++;
+            } else {
+                log.warn("Skipping invalid line: {}", products.recordText());
+            }
+
+            if (batch.size() >= batchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+        return loaded;
+    }
+
+    private void writeBatch(List<byte[][]> batch) {
+        redisCallLimiter.call(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[][] data : batch) {
+                connection.set(data[0], data[1]);
+            }
             return null;
-        });
+        }));
+
+        log.info("Processed batch of {} products.", batch.size());
+    }
+
+    /**
+     * Returns the index after the last line break, or 0 if there is none.
+     */
+    private static int lastLineEnd(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
     }
 }
@@ -0,0 +1,216 @@
+package org.peter.processor.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.peter.processor.io.CsvTokenizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes only the changes of the products file to Redis. Products are spread over {@link #BUCKETS} buckets by id;
+ * the fingerprint of every bucket and the ids it holds are kept in Redis next to the products. Buckets whose
+ * fingerprint is unchanged are skipped, the others are compared product by product with one {@code MGET}, and
+ * only changed names are written and ids that left the bucket deleted. Changed buckets are handled
+ * {@value #BUCKETS_PER_PIPELINE} at a time, with one pipeline reading their ids and names and one writing the
+ * changes, so a first sync takes a few round trips rather than several per bucket.
+ * <p>
+ * Deletes are tracked from the first sync on: products written by a full load and dropped from the file before
+ * that are not deleted.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.catalog.backend", havingValue = "redis", matchIfMissing = true)
+public class ProductsSync {
+    static final int BUCKETS = 256;
+    static final String FINGERPRINTS_KEY = "catalog:sync:fingerprints";
+    static final String IDS_KEY_PREFIX = "catalog:sync:ids:";
+    static final int BUCKETS_PER_PIPELINE = 32;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCallLimiter redisCallLimiter;
+
+    /**
+     * Syncs Redis with a products file, whose first line is the header.
+     */
+    public ProductSyncResult sync(InputStream inputStream) {
+        long start = System.nanoTime();
+        List<Map<String, String>> buckets = readBuckets(inputStream);
+        Map<Object, Object> storedFingerprints = redisCallLimiter.call(() -> redisTemplate.opsForHash().entries(FINGERPRINTS_KEY));
+
+        int products = 0;
+        List<Integer> changedBuckets = new ArrayList<>();
+        String[] fingerprints = new String[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            products += buckets.get(bucket).size();
+            fingerprints[bucket] = fingerprint(buckets.get(bucket));
+            if (!fingerprints[bucket].equals(storedFingerprints.get(String.valueOf(bucket)))) {
+                changedBuckets.add(bucket);
+            }
+        }
+
+        int written = 0;
+        int deleted = 0;
+        for (int from = 0; from < changedBuckets.size(); from += BUCKETS_PER_PIPELINE) {
+            List<BucketUpdate> updates = compareBuckets(
+                    changedBuckets.subList(from, Math.min(from + BUCKETS_PER_PIPELINE, changedBuckets.size())),
+                    buckets, fingerprints);
+            writeBuckets(updates);
+            for (BucketUpdate update : updates) {
+                written += update.changed().size();
+                deleted += update.removed().size();
+            }
+        }
+        return new ProductSyncResult(products, changedBuckets.size(), written, deleted,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Reads the stored ids and names of the given buckets in one pipeline and compares them with the file.
+     */
+    @SuppressWarnings("unchecked")
+    private List<BucketUpdate> compareBuckets(List<Integer> bucketNumbers, List<Map<String, String>> buckets,
+                                              String[] fingerprints) {
+        List<List<String>> bucketIds = new ArrayList<>(bucketNumbers.size());
+        for (int bucket : bucketNumbers) {
+            bucketIds.add(new ArrayList<>(buckets.get(bucket).keySet()));
+        }
+        List<Object> stored = redisCallLimiter.call(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < bucketNumbers.size(); i++) {
+                connection.setCommands().sMembers(bytes(IDS_KEY_PREFIX + bucketNumbers.get(i)));
+                if (!bucketIds.get(i).isEmpty()) {
+                    connection.stringCommands().mGet(bucketIds.get(i).stream().map(ProductsSync::bytes).toArray(byte[][]::new));
+                }
+            }
+            return null;
+        }));
+
+        List<BucketUpdate> updates = new ArrayList<>(bucketNumbers.size());
+        int result = 0;
+        for (int i = 0; i < bucketNumbers.size(); i++) {
+            int bucket = bucketNumbers.get(i);
+            Map<String, String> products = buckets.get(bucket);
+            List<String> ids = bucketIds.get(i);
+            Set<String> previousIds = (Set<String>) stored.get(result++);
+            List<String> storedNames = ids.isEmpty() ? List.of() : (List<String>) stored.get(result++);
+
+            List<String> changed = new ArrayList<>();
+            for (int id = 0; id < ids.size(); id++) {
+                if (!products.get(ids.get(id)).equals(storedNames.get(id))) {
+                    changed.add(ids.get(id));
+                }
+            }
+            List<String> removed = new ArrayList<>();
+            for (String id : previousIds) {
+                if (!products.containsKey(id)) {
+                    removed.add(id);
+                }
+            }
+            boolean idsChanged = !previousIds.equals(products.keySet());
+            updates.add(new BucketUpdate(bucket, products, ids, changed, removed, idsChanged, fingerprints[bucket]));
+        }
+        return updates;
+    }
+
+    /**
+     * Writes the changes of the given buckets in one pipeline. The fingerprint of a bucket is stored after its
+     * changes, so a bucket cut short is synced again.
+     */
+    private void writeBuckets(List<BucketUpdate> updates) {
+        redisCallLimiter.call(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (BucketUpdate update : updates) {
+                byte[] idsKey = bytes(IDS_KEY_PREFIX + update.bucket());
+                for (String id : update.changed()) {
+                    connection.stringCommands().set(bytes(id), bytes(update.products().get(id)));
+                }
+                if (!update.removed().isEmpty()) {
+                    connection.keyCommands().del(update.removed().stream().map(ProductsSync::bytes).toArray(byte[][]::new));
+                }
+                if (update.idsChanged()) {
+                    connection.keyCommands().del(idsKey);
+                    if (!update.ids().isEmpty()) {
+                        connection.setCommands().sAdd(idsKey, update.ids().stream().map(ProductsSync::bytes).toArray(byte[][]::new));
+                    }
+                }
+                connection.hashCommands().hSet(bytes(FINGERPRINTS_KEY), bytes(String.valueOf(update.bucket())),
+                        bytes(update.fingerprint()));
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Reads the products into their buckets; a product listed twice keeps its last name, like a full load.
+     */
+    private static List<Map<String, String>> readBuckets(InputStream inputStream) {
+        List<Map<String, String>> buckets = new ArrayList<>(BUCKETS);
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.add(new HashMap<>());
+        }
+        CsvTokenizer products = new CsvTokenizer(inputStream);
+        products.nextRecord(); // Skip header
+        while (products.nextRecord()) {
+            if (products.fieldCount() == 2) {
+                String id = products.field(0);
+                buckets.get(bucketOf(id)).put(id, products.field(1));
+            } else {
+                log.warn("Skipping invalid line: {}", products.recordText());
+            }
+        }
+        return buckets;
+    }
+
+    static int bucketOf(String productId) {
+        return Math.floorMod(productId.hashCode(), BUCKETS);
+    }
+
+    /**
+     * Combines the hashes of the products so that the order of the file does not matter, with the count to
+     * tell apart buckets whose hashes happen to cancel out.
+     */
+    static String fingerprint(Map<String, String> products) {
+        long sum = 0;
+        for (Map.Entry<String, String> product : products.entrySet()) {
+            sum += hash(product.getKey(), product.getValue());
+        }
+        return Long.toHexString(sum) + ":" + products.size();
+    }
+
+    /**
+     * FNV-1a over the id, a separator and the name, followed by the MurmurHash3 finalizer to spread the bits.
+     */
+    private static long hash(String id, String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ 0xFFFF) * 0x100000001b3L; // A noncharacter, so "1"+"2x" differs from "12"+"x"
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record BucketUpdate(int bucket, Map<String, String> products, List<String> ids, List<String> changed,
+                                List<String> removed, boolean idsChanged, String fingerprint) {
+    }
+}
@@ -0,0 +1,37 @@
+package org.peter.processor.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of Redis calls in flight at the same time ({@code app.redis.max-concurrent-calls}).
+ * <p>
+ * With platform threads the pool size already bounds concurrency, but with virtual threads every batch gets
+ * its own thread, so this is what keeps the Redis connection from being flooded.
+ */
+@Component
+public class RedisCallLimiter {
+
+    private final Semaphore permits;
+
+    public RedisCallLimiter(@Value("${app.redis.max-concurrent-calls}") int maxConcurrentCalls) {
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    public <T> T call(Supplier<T> redisCall) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a Redis call slot", e);
+        }
+        try {
+            return redisCall.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.peter.processor.service;
+
+import org.peter.processor.io.importer.RowIssue;
+import org.peter.processor.io.importer.RowIssueListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Summary of the row issues of one request: how many rows hit each {@link RowIssue} and the first few offending
+ * values of each. Recording an issue is a counter increment once the samples are full, so the cost of a dirty
+ * file does not grow with the number of bad rows beyond that.
+ */
+public class RejectionReport implements RowIssueListener {
+    public static final String ROWS_REJECTED_TRAILER = "Rows-Rejected";
+    public static final String REJECTIONS_TRAILER = "Rows-Rejected-By-Reason";
+    public static final String PRODUCTS_MISSING_TRAILER = "Products-Missing";
+    public static final String SAMPLES_TRAILER = "Row-Issue-Samples";
+    public static final String TRAILER_NAMES =
+            ROWS_REJECTED_TRAILER + ", " + REJECTIONS_TRAILER + ", " + PRODUCTS_MISSING_TRAILER + ", " + SAMPLES_TRAILER;
+
+    private static final int MAX_SAMPLE_LENGTH = 100;
+
+    private final int maxSamples;
+    private final LongAdder rowsParsed = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final Map<RowIssue, LongAdder> counts = new EnumMap<>(RowIssue.class);
+    private final Map<RowIssue, AtomicInteger> sampleSlots = new EnumMap<>(RowIssue.class);
+    private final Map<RowIssue, AtomicReferenceArray<String>> samples = new EnumMap<>(RowIssue.class);
+
+    /**
+     * @param maxSamples offending values kept per issue
+     */
+    public RejectionReport(int maxSamples) {
+        this.maxSamples = maxSamples;
+        for (RowIssue issue : RowIssue.values()) {
+            counts.put(issue, new LongAdder());
+            sampleSlots.put(issue, new AtomicInteger());
+            samples.put(issue, new AtomicReferenceArray<>(maxSamples));
+        }
+    }
+
+    @Override
+    public void onIssue(RowIssue issue, String row) {
+        counts.get(issue).increment();
+
+        AtomicInteger slots = sampleSlots.get(issue);
+        if (slots.get() < maxSamples) {
+            int slot = slots.getAndIncrement();
+            if (slot < maxSamples) {
+                samples.get(issue).set(slot, row);
+            }
+        }
+    }
+
+    /**
+     * Counts rows parsed from the input, which is how far the request has progressed.
+     */
+    public void addRowsParsed(int count) {
+        rowsParsed.add(count);
+    }
+
+    public long rowsParsed() {
+        return rowsParsed.sum();
+    }
+
+    /**
+     * Counts enriched rows handed to the exporter.
+     */
+    public void addRowsWritten(int count) {
+        rowsWritten.add(count);
+    }
+
+    public long rowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public long count(RowIssue issue) {
+        return counts.get(issue).sum();
+    }
+
+    /**
+     * Returns the number of rows left out of the output.
+     */
+    public long rejectedRows() {
+        long rejected = 0;
+        for (RowIssue issue : RowIssue.values()) {
+            if (issue.isRejected()) {
+                rejected += count(issue);
+            }
+        }
+        return rejected;
+    }
+
+    public List<String> samples(RowIssue issue) {
+        AtomicReferenceArray<String> values = samples.get(issue);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < values.length(); i++) {
+            String value = values.get(i);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        for (RowIssue issue : RowIssue.values()) {
+            if (count(issue) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the report as HTTP trailer fields, see {@link #TRAILER_NAMES}. Samples are reduced to printable
+     * ASCII so that they are safe in a header value.
+     */
+    public Map<String, String> toTrailerFields() {
+        StringJoiner rejections = new StringJoiner(", ");
+        StringJoiner sampleValues = new StringJoiner("; ");
+        for (RowIssue issue : RowIssue.values()) {
+            if (issue.isRejected()) {
+                rejections.add(issue.tag() + "=" + count(issue));
+            }
+            List<String> issueSamples = samples(issue);
+            if (!issueSamples.isEmpty()) {
+                StringJoiner values = new StringJoiner(", ", issue.tag() + "=", "");
+                issueSamples.forEach(sample -> values.add(quote(sample)));
+                sampleValues.add(values.toString());
+            }
+        }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(ROWS_REJECTED_TRAILER, String.valueOf(rejectedRows()));
+        fields.put(REJECTIONS_TRAILER, rejections.toString());
+        fields.put(PRODUCTS_MISSING_TRAILER, String.valueOf(count(RowIssue.MISSING_PRODUCT)));
+        fields.put(SAMPLES_TRAILER, sampleValues.toString());
+        return fields;
+    }
+
+    private static String quote(String sample) {
+        StringBuilder quoted = new StringBuilder("\"");
+        int length = Math.min(sample.length(), MAX_SAMPLE_LENGTH);
+        for (int i = 0; i < length; i++) {
+            char c = sample.charAt(i);
+            quoted.append(c < ' ' || c > '~' || c == '"' || c == '\\' ? '?' : c);
+        }
+        if (sample.length() > length) {
+            quoted.append("...");
+        }
+        return quoted.append('"').toString();
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner summary = new StringJoiner(", ");
+        for (RowIssue issue : RowIssue.values()) {
+            long count = count(issue);
+            if (count > 0) {
+                summary.add(issue.tag() + "=" + count + " " + samples(issue));
+            }
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package org.peter.processor.service;
+
+import lombok.RequiredArgsConstructor;
+import org.peter.processor.io.importer.RowIssue;
+import org.peter.processor.io.importer.RowIssueListener;
+import org.peter.processor.model.Trade;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the enrichment rules to a batch of trades once its product names have been looked up:
+ * trades with an invalid date are dropped and unknown products get a placeholder name. Both are reported to the
+ * listener rather than logged, since dirty files can have millions of them.
+ */
+@Component
+@RequiredArgsConstructor
+public class TradeEnricher {
+    static final String MISSING_PRODUCT_NAME = "Missing Product Name";
+
+    private final DateValidator dateValidator;
+
+    /**
+     * @param productNames names aligned by index with {@code batch}, {@code null} for unknown products
+     * @param listener     receives the skipped trades and the unknown products
+     */
+    public List<Trade> enrich(List<Trade> batch, List<String> productNames, RowIssueListener listener) {
+        List<Trade> enrichedBatch = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            Trade trade = batch.get(i);
+
+            if (!dateValidator.isValid(trade.getDate())) {
+                listener.onIssue(RowIssue.INVALID_DATE, trade.getDate());
+                continue;
+            }
+
+            String productName = productNames.get(i);
+            if (productName == null) {
+                listener.onIssue(RowIssue.MISSING_PRODUCT, trade.getProductKey());
+                productName = MISSING_PRODUCT_NAME;
+            }
+
+            trade.setProductName(productName);
+            enrichedBatch.add(trade);
+        }
+        return enrichedBatch;
+    }
+}
@@ -0,0 +1,96 @@
+package org.peter.processor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.peter.processor.io.importer.RowIssue;
+import org.peter.processor.io.importer.RowIssueListener;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the stages of trade processing, exposed through {@code /actuator/metrics}.
+ * Meters are tagged with the lower-case format name ({@code csv}, {@code json}, ...) where it applies.
+ */
+@Component
+@RequiredArgsConstructor
+public class TradeMetrics {
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry registry;
+
+    public void rowsParsed(String format, int count) {
+        registry.counter("trades.rows.parsed", "format", format).increment(count);
+    }
+
+    /**
+     * Counts rejected rows ({@code trades.rows.rejected} by reason) and missing products
+     * ({@code trades.products.missing}) of one request.
+     */
+    public RowIssueListener rowIssueListener(String format) {
+        Map<RowIssue, Counter> counters = new EnumMap<>(RowIssue.class);
+        for (RowIssue issue : RowIssue.values()) {
+            counters.put(issue, issue.isRejected()
+                    ? registry.counter("trades.rows.rejected", "format", format, "reason", issue.tag())
+                    : registry.counter("trades.products.missing", "format", format));
+        }
+        return (issue, row) -> counters.get(issue).increment();
+    }
+
+    /**
+     * Records one {@code MGET} against Redis: its latency and the number of keys it looked up.
+     */
+    public void redisMultiGet(long durationNanos, int keys) {
+        Timer.builder("redis.multiget")
+                .description("Latency of product name lookups in Redis")
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("redis.multiget.keys")
+                .description("Keys per product name lookup in Redis")
+                .baseUnit("keys")
+                .register(registry)
+                .record(keys);
+    }
+
+    /**
+     * Records the time spent encoding and writing the output of one request.
+     */
+    public void exported(String format, long durationNanos) {
+        registry.timer("trades.export", "format", format).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void exportedBytes(String format, long bytes) {
+        DistributionSummary.builder("trades.export.bytes")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * Records a whole request, from the first row read to the last row written.
+     */
+    public void processed(String format, String outcome, long durationNanos) {
+        registry.timer("trades.processing", "format", format, "outcome", outcome)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void productsLoaded(int count, long durationNanos) {
+        registry.counter("products.loaded").increment(count);
+        registry.timer("products.load").record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts the Redis writes of an incremental products sync.
+     */
+    public void productsSynced(int written, int deleted) {
+        registry.counter("products.sync.written").increment(written);
+        registry.counter("products.sync.deleted").increment(deleted);
+    }
+}
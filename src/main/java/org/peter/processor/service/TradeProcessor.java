@@ -3,166 +3,288 @@ package org.peter.processor.service;
 import lombok.extern.slf4j.Slf4j;
 import org.peter.processor.exception.UnsupportedFormatException;
 import org.peter.processor.io.ProcessType;
+import org.peter.processor.io.exporter.ExportSession;
 import org.peter.processor.io.exporter.TradeExporter;
+import org.peter.processor.io.importer.RowIssueListener;
 import org.peter.processor.io.importer.TradeImporter;
+import org.peter.processor.model.Trade;
+import org.peter.processor.service.catalog.ProductCatalog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedWriter;
-import java.io.IOException;
 import java.io.InputStream;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class TradeProcessor {
-
     @Value("${app.batch-size}")
     private int batchSize;
 
-    @Value("${app.thread-count}")
-    private int threadCount;
-
-    @Value("${app.date-format}")
-    private String dateFormat;
+    @Value("${app.max-in-flight-batches}")
+    private int maxInFlightBatches;
 
-    private final StringRedisTemplate redisTemplate;
+    private final ProductCatalog productCatalog;
+    private final TradeEnricher tradeEnricher;
+    private final ProcessingExecutor processingExecutor;
+    private final TradeMetrics tradeMetrics;
     private final Map<String, TradeExporter> exporters;
     private final Map<String, TradeImporter> importers;
 
     @Autowired
-    public TradeProcessor(StringRedisTemplate redisTemplate, List<TradeExporter> exporters, List<TradeImporter> importers) {
-        this.redisTemplate = redisTemplate;
+    public TradeProcessor(ProductCatalog productCatalog, TradeEnricher tradeEnricher, ProcessingExecutor processingExecutor,
+                          TradeMetrics tradeMetrics, List<TradeExporter> exporters, List<TradeImporter> importers) {
+        this.productCatalog = productCatalog;
+        this.tradeEnricher = tradeEnricher;
+        this.processingExecutor = processingExecutor;
+        this.tradeMetrics = tradeMetrics;
         this.exporters = exporters.stream().collect(Collectors.toMap(TradeExporter::getType, exporter -> exporter));
         this.importers = importers.stream().collect(Collectors.toMap(TradeImporter::getType, importer -> importer));
     }
 
-    public void processTrades(InputStream inputStream, String acceptHeader, BufferedWriter writer) {
-        String format = ProcessType.fromMimeType(acceptHeader).getType();
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
-        TradeImporter importer = importers.get(format);
-        TradeExporter exporter = exporters.get(format);
-
-        try (Stream<Map<String, String>> tradeStream = importer.importData(inputStream)) {
-            List<Map<String, String>> batch = new ArrayList<>();
-            List<CompletableFuture<List<Map<String, String>>>> futures = new ArrayList<>();
-
-            tradeStream.forEach(trade -> {
-                batch.add(trade);
-                if (batch.size() >= batchSize) {
-                    futures.add(processBatchAsync(new ArrayList<>(batch), executor));
-                    batch.clear();
-                }
-            });
+    /**
+     * @param inputType  MIME type of the input
+     * @param outputType MIME type of the output
+     * @param report     collects the rejected rows and missing products of the request
+     */
+    public void processTrades(InputStream inputStream, String inputType, String outputType, OutputStream output,
+                              RejectionReport report) {
+        Formats formats = formats(inputType, outputType);
+        try (ProcessingExecutor.Permit permit = processingExecutor.admit()) {
+            processTrades(formats, (importer, listener) -> importer.importData(inputStream, listener), output, report);
+        }
+    }
 
-            if (!batch.isEmpty()) {
-                futures.add(processBatchAsync(batch, executor));
+    /**
+     * Processes a trade file in the background. When the importer returns a parallel stream the file is parsed chunk
+     * by chunk on the processing executor, and the output still follows the input order. Waits for processing
+     * capacity instead of being rejected.
+     */
+    public void processTrades(Path file, String inputType, String outputType, OutputStream output, RejectionReport report)
+            throws InterruptedException {
+        Formats formats = formats(inputType, outputType);
+        try (ProcessingExecutor.Permit permit = processingExecutor.awaitAdmission()) {
+            processTrades(formats, (importer, listener) -> importer.importData(file, listener), output, report);
+        }
+    }
+
+    /**
+     * Resolves the importer and exporter, so that unsupported or unavailable formats are rejected before the request
+     * is admitted.
+     */
+    private Formats formats(String inputType, String outputType) {
+        ProcessType inputProcessType = ProcessType.fromMimeType(inputType);
+        ProcessType outputProcessType = ProcessType.fromMimeType(outputType);
+        TradeImporter importer = importers.get(inputProcessType.getType());
+        if (importer == null) {
+            throw new UnsupportedFormatException("Trades cannot be read from " + inputProcessType.getType());
+        }
+        TradeExporter exporter = exporters.get(outputProcessType.getType());
+        exporter.checkAvailable();
+        return new Formats(importer, exporter, inputProcessType.name().toLowerCase(), outputProcessType.name().toLowerCase());
+    }
+
+    private void processTrades(Formats formats, BiFunction<TradeImporter, RowIssueListener, Stream<Trade>> source,
+                               OutputStream output, RejectionReport report) {
+        String format = formats.outputFormat();
+        Job job = new Job(formats.inputFormat(), format,
+                tradeMetrics.rowIssueListener(formats.inputFormat()).andThen(report), report, new AtomicBoolean());
+
+        long start = System.nanoTime();
+        String outcome = TradeMetrics.OUTCOME_ERROR;
+        try {
+            enrichAndExport(job, source.apply(formats.importer(), job.listener()), formats.exporter(), output);
+            outcome = TradeMetrics.OUTCOME_SUCCESS;
+        } finally {
+            tradeMetrics.processed(format, outcome, System.nanoTime() - start);
+            if (!report.isEmpty()) {
+                log.warn("Trades with issues: {}", report); // One line per request instead of one per row
             }
+        }
+    }
+
+    private void enrichAndExport(Job job, Stream<Trade> trades, TradeExporter exporter, OutputStream output) {
+        try (Stream<Trade> tradeStream = trades;
+             EnrichedBatchIterator enrichedBatches = new EnrichedBatchIterator(job, tradeStream.isParallel()
+                     ? chunksOf(job, tradeStream.spliterator())
+                     : batchesOf(job, tradeStream.iterator()))) {
 
-            CompletableFuture<Void> allFutures = CompletableFuture
-                    .allOf(futures.toArray(new CompletableFuture[0]));
-
-            allFutures.thenApply(v -> futures.stream()
-                            .map(CompletableFuture::join)
-                            .flatMap(List::stream)
-                            .collect(Collectors.toList()))
-                    .thenAccept(trades -> {
-                        try {
-                            exporter.writeTrades(writer, trades);
-                            writer.flush(); // Ensure everything is written
-                        } catch (IOException e) {
-                            log.error("Error writing trades: {}", e.getMessage(), e);
-                        }
-                    }).exceptionally(ex -> {
-                        log.error("Error processing trades: {}", ex.getMessage(), ex);
-                        return null;
-                    }).join(); // Ensure full completion before proceeding
+            long exportStart = System.nanoTime();
+            try (ExportSession session = exporter.begin(output)) {
+                long exportNanos = System.nanoTime() - exportStart;
+
+                while (enrichedBatches.hasNext()) {
+                    List<Trade> batch = enrichedBatches.next();
+                    exportStart = System.nanoTime();
+                    session.writeBatch(batch);
+                    output.flush(); // Push each batch to the client as soon as it is written
+                    job.report().addRowsWritten(batch.size());
+                    exportNanos += System.nanoTime() - exportStart;
+                }
+
+                exportStart = System.nanoTime();
+                session.end();
+                tradeMetrics.exported(job.outputFormat(), exportNanos + System.nanoTime() - exportStart);
+            }
 
         } catch (Exception e) {
             log.error("Error processing trades: {}", e.getMessage(), e);
             throw new RuntimeException("Error processing trades", e);
-        } finally {
-            shutdownExecutor(executor); // Shutdown only after all tasks are finished
         }
     }
 
-
-    private CompletableFuture<List<Map<String, String>>> processBatchAsync(List<Map<String, String>> batch, ExecutorService executor) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<Map<String, String>> enrichedBatch = new ArrayList<>();
-            List<String> productIds = batch.stream().map(trade -> trade.get("productId")).collect(Collectors.toList());
-
-            Map<String, String> productMap = new HashMap<>();
-            List<String> productNames = redisTemplate.opsForValue().multiGet(productIds);
-            if (productNames == null) {
-                productNames = new ArrayList<>(Collections.nCopies(productIds.size(), "Missing Product Name"));
+    /**
+     * Reads batches of {@code batchSize} trades on the calling thread and enriches them on the executor.
+     */
+    private Supplier<CompletableFuture<List<Trade>>> batchesOf(Job job, Iterator<Trade> source) {
+        return () -> {
+            if (!source.hasNext()) {
+                return null;
+            }
+            List<Trade> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && source.hasNext()) {
+                batch.add(source.next());
             }
+            rowsParsed(job, batch.size());
+            return CompletableFuture.supplyAsync(() -> enrichBatch(job, batch), processingExecutor.executor());
+        };
+    }
 
-            for (int i = 0; i < productIds.size(); i++) {
-                productMap.put(productIds.get(i), productNames.get(i) != null ? productNames.get(i) : "Missing Product Name");
+    /**
+     * Carves chunks of about {@code batchSize} trades off the front of the spliterator, in input order, and
+     * parses and enriches each chunk on the executor.
+     */
+    private Supplier<CompletableFuture<List<Trade>>> chunksOf(Job job, Spliterator<Trade> source) {
+        Deque<Spliterator<Trade>> pending = new ArrayDeque<>();
+        pending.add(source);
+        return () -> {
+            Spliterator<Trade> chunk = pending.pollFirst();
+            if (chunk == null) {
+                return null;
             }
+            Spliterator<Trade> prefix;
+            while (chunk.estimateSize() > batchSize && (prefix = chunk.trySplit()) != null) {
+                pending.addFirst(chunk);
+                chunk = prefix;
+            }
+            Spliterator<Trade> nextChunk = chunk;
+            return CompletableFuture.supplyAsync(() -> processChunk(job, nextChunk), processingExecutor.executor());
+        };
+    }
 
-            for (Map<String, String> trade : batch) {
-                String date = trade.get("date");
-                String productId = trade.get("productId");
-                String currency = trade.get("currency");
-                String price = trade.get("price");
+    private List<Trade> processChunk(Job job, Spliterator<Trade> chunk) {
+        List<Trade> trades = new ArrayList<>();
+        chunk.forEachRemaining(trades::add);
+        rowsParsed(job, trades.size());
 
-                if (!isValidDate(date)) {
-                    log.error("Invalid date {}, skipping...", date);
-                    continue;
-                }
+        List<Trade> enrichedChunk = new ArrayList<>(trades.size());
+        for (int from = 0; from < trades.size(); from += batchSize) {
+            enrichedChunk.addAll(enrichBatch(job, trades.subList(from, Math.min(from + batchSize, trades.size()))));
+        }
+        return enrichedChunk;
+    }
 
-                String productName = productMap.getOrDefault(productId, "Missing Product Name");
+    private void rowsParsed(Job job, int count) {
+        tradeMetrics.rowsParsed(job.inputFormat(), count);
+        job.report().addRowsParsed(count);
+    }
 
-                if ("Missing Product Name".equals(productName)) {
-                    log.error("Missing Product Name for id {}", productId);
-                }
+    private List<Trade> enrichBatch(Job job, List<Trade> batch) {
+        if (job.cancelled().get()) {
+            throw new CancellationException("Request already failed"); // Spare Redis the lookups of a dead request
+        }
+        return tradeEnricher.enrich(batch, productCatalog.findProductNames(batch), job.listener());
+    }
 
-                Map<String, String> tradeData = new HashMap<>();
-                tradeData.put("date", date);
-                tradeData.put("productName", productName);
-                tradeData.put("currency", currency);
-                tradeData.put("price", price);
+    /**
+     * @param inputFormat  lower-case name of the input format
+     * @param outputFormat lower-case name of the output format
+     */
+    private record Formats(TradeImporter importer, TradeExporter exporter, String inputFormat, String outputFormat) {
+    }
 
-                enrichedBatch.add(tradeData);
-            }
-            return enrichedBatch;
-        }, executor);
+    /**
+     * Per-request state shared by the batches of one request.
+     *
+     * @param inputFormat  lower-case format name used as metric tag while parsing
+     * @param outputFormat lower-case format name used as metric tag while exporting
+     * @param listener     receives the rows with issues
+     * @param report       summary of the request, also tracks its progress
+     * @param cancelled    set once the request has failed, so batches still running stop before their next lookup
+     */
+    private record Job(String inputFormat, String outputFormat, RowIssueListener listener, RejectionReport report,
+                       AtomicBoolean cancelled) {
     }
 
-    private boolean isValidDate(String date) {
-        final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateFormat);
-        try {
-            LocalDate.parse(date, formatter);
-            return true;
-        } catch (DateTimeParseException e) {
-            return false;
+    /**
+     * Hands out enriched batches in input order. At most {@code maxInFlightBatches} batches are read ahead and
+     * enriched concurrently, so memory stays bounded by the window size rather than by the size of the input.
+     * Closing it before the last batch, as happens when a batch or the export fails, cancels the batches still in
+     * the window so they give back their executor slots and Redis calls.
+     */
+    private class EnrichedBatchIterator implements Iterator<List<Trade>>, AutoCloseable {
+        private final Job job;
+        private final Supplier<CompletableFuture<List<Trade>>> source;
+        private final Deque<CompletableFuture<List<Trade>>> inFlight = new ArrayDeque<>();
+        private boolean exhausted;
+
+        EnrichedBatchIterator(Job job, Supplier<CompletableFuture<List<Trade>>> source) {
+            this.job = job;
+            this.source = source;
+            try {
+                fillWindow(); // Start enrichment before the exporter writes its header
+            } catch (RuntimeException e) {
+                close(); // Not closed by the caller when the constructor fails
+                throw e;
+            }
         }
-    }
 
-    private void shutdownExecutor(ExecutorService executor) {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
-                log.warn("Forcing executor shutdown...");
-                executor.shutdownNow();
+        @Override
+        public boolean hasNext() {
+            return !inFlight.isEmpty();
+        }
+
+        @Override
+        public List<Trade> next() {
+            CompletableFuture<List<Trade>> next = inFlight.poll();
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            fillWindow(); // Keep the window full while waiting for the head batch
+            return next.join();
+        }
+
+        private void fillWindow() {
+            while (!exhausted && inFlight.size() < maxInFlightBatches) {
+                CompletableFuture<List<Trade>> batch = source.get();
+                if (batch == null) {
+                    exhausted = true;
+                } else {
+                    inFlight.add(batch);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (inFlight.isEmpty()) {
+                return;
+            }
+            job.cancelled().set(true);
+            CompletableFuture<List<Trade>> batch;
+            while ((batch = inFlight.poll()) != null) {
+                batch.cancel(false); // Queued batches never start; running ones stop at their next lookup
             }
-        } catch (InterruptedException e) {
-            log.warn("Executor interrupted, forcing shutdown...");
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package org.peter.processor.service.catalog;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.peter.processor.model.Trade;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process near-cache in front of {@link RedisProductCatalog}.
+ * <p>
+ * Only the ids missing from the cache are fetched from Redis, in a single {@code MGET} per batch.
+ * Unknown products are cached as well so that repeated misses do not hit Redis every time.
+ * Hit/miss statistics are published as {@code cache.*} metrics tagged with {@code cache=products}.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnExpression("${app.product-cache.enabled:true} and '${app.catalog.backend:redis}' == 'redis'")
+public class CachingProductCatalog implements ProductCatalog, MeterBinder {
+
+    private static final String UNKNOWN_PRODUCT = "";
+
+    private final RedisProductCatalog redisCatalog;
+    private final Cache<String, String> cache;
+
+    public CachingProductCatalog(RedisProductCatalog redisCatalog,
+                                 @Value("${app.product-cache.max-size}") long maxSize,
+                                 @Value("${app.product-cache.ttl}") Duration ttl) {
+        this.redisCatalog = redisCatalog;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public List<String> findProductNames(List<Trade> trades) {
+        List<String> productIds = new ArrayList<>(trades.size());
+        for (Trade trade : trades) {
+            productIds.add(trade.getProductKey());
+        }
+
+        Map<String, String> cached = cache.getAll(productIds, this::loadFromRedis);
+
+        List<String> productNames = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            String productName = cached.get(productId);
+            productNames.add(UNKNOWN_PRODUCT.equals(productName) ? null : productName);
+        }
+        return productNames;
+    }
+
+    @EventListener(ProductCatalogReloadedEvent.class)
+    public void invalidate() {
+        cache.invalidateAll();
+        log.info("Product cache invalidated after catalogue reload");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "products");
+    }
+
+    private Map<String, String> loadFromRedis(Set<? extends String> productIds) {
+        List<String> ids = new ArrayList<>(productIds);
+        List<String> names = redisCatalog.findProductNamesByIds(ids);
+
+        Map<String, String> loaded = new HashMap<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            String name = names.get(i);
+            loaded.put(ids.get(i), name != null ? name : UNKNOWN_PRODUCT);
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,52 @@
+package org.peter.processor.service.catalog;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the state of the product catalogue load as the {@code catalog} health component: {@code OUT_OF_SERVICE}
+ * while the products are first loaded, with the number loaded so far, {@code DOWN} if that load failed and
+ * {@code UP} once the catalogue has been loaded. It belongs to the readiness group, so traffic is held until the
+ * catalogue is ready. A later reload that fails keeps it {@code UP}, as the previous catalogue is still served.
+ */
+@Component
+public class CatalogHealthIndicator implements HealthIndicator {
+
+    private enum State { LOADING, READY, FAILED }
+
+    private volatile State state = State.LOADING;
+    private volatile int productsLoaded;
+    private volatile String error;
+
+    public void progress(int productsLoaded) {
+        if (state == State.LOADING) {
+            this.productsLoaded = productsLoaded;
+        }
+    }
+
+    public void ready(int productsLoaded) {
+        this.productsLoaded = productsLoaded;
+        error = null;
+        state = State.READY;
+    }
+
+    public void failed(Exception e) {
+        error = e.getMessage();
+        if (state != State.READY) {
+            state = State.FAILED;
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = switch (state) {
+            case LOADING -> Health.outOfService();
+            case READY -> error != null ? Health.up().withDetail("lastReloadError", error) : Health.up();
+            case FAILED -> Health.down().withDetail("error", String.valueOf(error));
+        };
+        return health.withDetail("state", state.name().toLowerCase())
+                .withDetail("productsLoaded", productsLoaded)
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package org.peter.processor.service.catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable product id to name dictionary keyed by primitive {@code int} ids.
+ * <p>
+ * Ids live in an open-addressing table of primitive arrays and all names are stored UTF-8 encoded in a
+ * single off-heap arena, so loading the catalogue adds no per-product objects to the heap. Lookups never box
+ * the key. Decoded names are kept in a small direct-mapped cache of {@value #CACHE_SIZE} entries: hits on hot
+ * products allocate nothing, while at most that many names are held on the heap next to the arena, whatever the
+ * size of the catalogue. A product whose entry was taken by another one is decoded from the arena again.
+ */
+public final class IntProductDictionary {
+
+    private static final int EMPTY = -1;
+    static final int CACHE_SIZE = 4096;
+
+    private final int[] keys;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int mask;
+    private final int size;
+    private final ByteBuffer arena;
+    private final CachedName[] cache; // Written racily: entries are immutable, a lost update only costs a decode
+
+    private IntProductDictionary(int[] keys, int[] offsets, int[] lengths, int size, ByteBuffer arena) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.mask = keys.length - 1;
+        this.size = size;
+        this.arena = arena;
+        this.cache = new CachedName[Math.min(CACHE_SIZE, keys.length)];
+    }
+
+    /**
+     * Returns the name of the given product, or {@code null} when the id is unknown.
+     */
+    public String get(int productId) {
+        if (productId < 0) {
+            return null;
+        }
+        int slot = slotOf(productId);
+        if (keys[slot] == EMPTY) {
+            return null;
+        }
+
+        int cacheIndex = slot & (cache.length - 1);
+        CachedName cached = cache[cacheIndex];
+        if (cached != null && cached.slot() == slot) {
+            return cached.name();
+        }
+        byte[] bytes = new byte[lengths[slot]];
+        arena.get(offsets[slot], bytes);
+        String name = new String(bytes, StandardCharsets.UTF_8);
+        cache[cacheIndex] = new CachedName(slot, name);
+        return name;
+    }
+
+    public boolean contains(int productId) {
+        return productId >= 0 && keys[slotOf(productId)] != EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes held off-heap by the names.
+     */
+    public int arenaBytes() {
+        return arena.capacity();
+    }
+
+    private int slotOf(int productId) {
+        int slot = hash(productId) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != productId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private record CachedName(int slot, String name) {
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Collects products on the heap and copies them into the off-heap arena on {@link #build()}.
+     * Later entries replace earlier ones with the same id.
+     */
+    public static final class Builder {
+        private int[] ids = new int[1024];
+        private int[] offsets = new int[1024];
+        private int[] lengths = new int[1024];
+        private byte[] names = new byte[16 * 1024];
+        private int count;
+        private int namesLength;
+
+        private Builder() {
+        }
+
+        public Builder put(int productId, String productName) {
+            if (productId < 0) {
+                throw new IllegalArgumentException("Product id must not be negative: " + productId);
+            }
+            byte[] name = productName.getBytes(StandardCharsets.UTF_8);
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            if (namesLength + name.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + name.length));
+            }
+            System.arraycopy(name, 0, names, namesLength, name.length);
+            ids[count] = productId;
+            offsets[count] = namesLength;
+            lengths[count] = name.length;
+            namesLength += name.length;
+            count++;
+            return this;
+        }
+
+        public IntProductDictionary build() {
+            int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+            int[] tableKeys = new int[capacity];
+            int[] tableOffsets = new int[capacity];
+            int[] tableLengths = new int[capacity];
+            Arrays.fill(tableKeys, EMPTY);
+
+            ByteBuffer arena = ByteBuffer.allocateDirect(namesLength);
+            arena.put(names, 0, namesLength);
+
+            IntProductDictionary dictionary = new IntProductDictionary(tableKeys, tableOffsets, tableLengths, 0, arena);
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = dictionary.slotOf(ids[i]);
+                if (tableKeys[slot] == EMPTY) {
+                    size++;
+                }
+                tableKeys[slot] = ids[i];
+                tableOffsets[slot] = offsets[i];
+                tableLengths[slot] = lengths[i];
+            }
+            return new IntProductDictionary(tableKeys, tableOffsets, tableLengths, size, arena);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.peter.processor.service.catalog;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.peter.processor.io.CsvTokenizer;
+import org.peter.processor.model.Trade;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves product names from an in-process {@link IntProductDictionary} loaded straight from the products file,
+ * so enrichment does not depend on Redis. Intended for single-node deployments
+ * ({@code app.catalog.backend=off-heap}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.catalog.backend", havingValue = "off-heap")
+public class OffHeapProductCatalog implements ProductCatalog {
+
+    @Value("${app.products-file}")
+    private Resource productsFile;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogHealthIndicator catalogHealth;
+
+    private volatile IntProductDictionary dictionary = IntProductDictionary.builder().build();
+
+    @PostConstruct
+    public void loadProducts() {
+        IntProductDictionary.Builder builder = IntProductDictionary.builder();
+
+        try (InputStream inputStream = productsFile.getInputStream()) {
+
+            CsvTokenizer products = new CsvTokenizer(inputStream);
+            products.nextRecord(); // Skip header
+            while (products.nextRecord()) {
+                int productId = products.fieldCount() == 2 ? products.unsignedIntField(0) : Trade.NON_NUMERIC_ID;
+                if (productId != Trade.NON_NUMERIC_ID) {
+                    builder.put(productId, products.field(1));
+                } else {
+                    log.warn("Skipping invalid line: {}", products.recordText());
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error processing product file: {}", e.getMessage(), e);
+            catalogHealth.failed(e);
+            throw new RuntimeException("Error reading product CSV file", e);
+        }
+
+        dictionary = builder.build();
+        catalogHealth.ready(dictionary.size());
+        log.info("Loaded {} products into the off-heap catalogue ({} bytes of names).",
+                dictionary.size(), dictionary.arenaBytes());
+        eventPublisher.publishEvent(new ProductCatalogReloadedEvent());
+    }
+
+    @Override
+    public List<String> findProductNames(List<Trade> trades) {
+        IntProductDictionary current = dictionary;
+        List<String> productNames = new ArrayList<>(trades.size());
+        for (Trade trade : trades) {
+            productNames.add(trade.hasNumericProductId() ? current.get(trade.getProductId()) : null);
+        }
+        return productNames;
+    }
+}
@@ -0,0 +1,19 @@
+package org.peter.processor.service.catalog;
+
+import org.peter.processor.model.Trade;
+
+import java.util.List;
+
+/**
+ * Resolves product names for trades during enrichment.
+ */
+public interface ProductCatalog {
+
+    /**
+     * Looks up the product names of the given trades.
+     *
+     * @param trades the trades to resolve
+     * @return the product names in the same order as the trades; an entry is {@code null} when the product is unknown
+     */
+    List<String> findProductNames(List<Trade> trades);
+}
@@ -0,0 +1,7 @@
+package org.peter.processor.service.catalog;
+
+/**
+ * Published once the product catalogue has been (re)loaded, so that cached product names can be dropped.
+ */
+public record ProductCatalogReloadedEvent() {
+}
@@ -0,0 +1,47 @@
+package org.peter.processor.service.catalog;
+
+import lombok.RequiredArgsConstructor;
+import org.peter.processor.model.Trade;
+import org.peter.processor.service.RedisCallLimiter;
+import org.peter.processor.service.TradeMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.catalog.backend", havingValue = "redis", matchIfMissing = true)
+public class RedisProductCatalog implements ProductCatalog {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCallLimiter redisCallLimiter;
+    private final TradeMetrics tradeMetrics;
+
+    @Override
+    public List<String> findProductNames(List<Trade> trades) {
+        List<String> productIds = new ArrayList<>(trades.size());
+        for (Trade trade : trades) {
+            productIds.add(trade.getProductKey());
+        }
+        return findProductNamesByIds(productIds);
+    }
+
+    /**
+     * Fetches the product names for the given ids with a single {@code MGET}.
+     *
+     * @return the names in the same order as the ids; an entry is {@code null} when the product is unknown
+     */
+    public List<String> findProductNamesByIds(List<String> productIds) {
+        List<String> productNames = redisCallLimiter.call(() -> {
+            long start = System.nanoTime();
+            List<String> names = redisTemplate.opsForValue().multiGet(productIds);
+            tradeMetrics.redisMultiGet(System.nanoTime() - start, productIds.size());
+            return names;
+        });
+        return productNames != null ? productNames : Collections.nCopies(productIds.size(), null);
+    }
+}
@@ -0,0 +1,45 @@
+package org.peter.processor.service.job;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of a trade job, returned by the job API and persisted next to the job files.
+ *
+ * @param format          MIME type of the input
+ * @param resultFormat    MIME type of the result
+ * @param rowsParsed      rows read from the input so far
+ * @param rowsWritten     rows written to the result so far
+ * @param rowsRejected    rows left out of the result so far
+ * @param resultBytes     size of the result written so far
+ * @param error           why the job failed, {@code null} otherwise
+ */
+public record JobStatus(String id,
+                        JobState state,
+                        String format,
+                        String resultFormat,
+                        long inputBytes,
+                        long rowsParsed,
+                        long rowsWritten,
+                        long rowsRejected,
+                        long productsMissing,
+                        long resultBytes,
+                        Instant submittedAt,
+                        Instant startedAt,
+                        Instant finishedAt,
+                        String error) {
+
+    public JobStatus {
+        if (resultFormat == null) {
+            resultFormat = format; // Persisted before the result format could be chosen
+        }
+    }
+
+    /**
+     * Returns a copy marked as failed, e.g. for a job that was cut short by a restart.
+     */
+    public JobStatus failed(String reason, Instant at) {
+        return new JobStatus(id, JobState.FAILED, format, resultFormat, inputBytes, rowsParsed, rowsWritten, rowsRejected,
+                productsMissing,
+                resultBytes, submittedAt, startedAt, at, reason);
+    }
+}
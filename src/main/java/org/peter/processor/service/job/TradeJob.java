@@ -0,0 +1,118 @@
+package org.peter.processor.service.job;
+
+import org.peter.processor.io.importer.RowIssue;
+import org.peter.processor.service.RejectionReport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * A trade file processed in the background. The upload, the result and the last known status of a job live in a
+ * directory of their own.
+ */
+class TradeJob {
+    static final String INPUT_FILE = "input";
+    static final String RESULT_FILE = "result";
+    static final String STATUS_FILE = "status.json";
+
+    private final String id;
+    private final String format;
+    private final String resultFormat;
+    private final Path directory;
+    private final long inputBytes;
+    private final Instant submittedAt;
+    private final RejectionReport report;
+
+    private volatile JobState state = JobState.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile JobStatus restoredStatus;
+
+    TradeJob(String id, String format, String resultFormat, Path directory, long inputBytes, RejectionReport report) {
+        this.id = id;
+        this.format = format;
+        this.resultFormat = resultFormat;
+        this.directory = directory;
+        this.inputBytes = inputBytes;
+        this.submittedAt = Instant.now();
+        this.report = report;
+    }
+
+    /**
+     * Recreates a job from the status it persisted before a restart; it only serves that status and its result.
+     */
+    static TradeJob restore(Path directory, JobStatus status) {
+        TradeJob job = new TradeJob(status.id(), status.format(), status.resultFormat(), directory, status.inputBytes(), null);
+        job.state = status.state();
+        job.restoredStatus = status;
+        return job;
+    }
+
+    String id() {
+        return id;
+    }
+
+    String format() {
+        return format;
+    }
+
+    String resultFormat() {
+        return resultFormat;
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    Path inputFile() {
+        return directory.resolve(INPUT_FILE);
+    }
+
+    Path resultFile() {
+        return directory.resolve(RESULT_FILE);
+    }
+
+    RejectionReport report() {
+        return report;
+    }
+
+    JobState state() {
+        return state;
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        state = JobState.RUNNING;
+    }
+
+    void succeeded() {
+        finishedAt = Instant.now();
+        state = JobState.SUCCEEDED;
+    }
+
+    void failed(String reason) {
+        error = reason;
+        finishedAt = Instant.now();
+        state = JobState.FAILED;
+    }
+
+    JobStatus status() {
+        JobStatus restored = restoredStatus;
+        if (restored != null) {
+            return restored;
+        }
+        return new JobStatus(id, state, format, resultFormat, inputBytes, report.rowsParsed(), report.rowsWritten(),
+                report.rejectedRows(), report.count(RowIssue.MISSING_PRODUCT), resultBytes(), submittedAt, startedAt, finishedAt, error);
+    }
+
+    private long resultBytes() {
+        try {
+            return Files.exists(resultFile()) ? Files.size(resultFile()) : 0;
+        } catch (IOException e) {
+            return 0; // Deleted concurrently
+        }
+    }
+}
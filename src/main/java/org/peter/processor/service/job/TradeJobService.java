@@ -0,0 +1,258 @@
+package org.peter.processor.service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.peter.processor.exception.InputTooLargeException;
+import org.peter.processor.exception.JobNotFinishedException;
+import org.peter.processor.exception.JobNotFoundException;
+import org.peter.processor.exception.UnsupportedFormatException;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.service.RejectionReport;
+import org.peter.processor.service.TradeProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs trade files in the background: the upload is stored under {@code app.jobs.storage-dir}, processed by
+ * {@link TradeProcessor} on the shared processing executor and the result is kept on disk until the job is deleted.
+ * <p>
+ * At most {@code app.jobs.max-running} jobs run at a time, the rest wait in submission order. Jobs take the same
+ * processing slots as interactive requests; when all of them are taken a job waits for one rather than failing.
+ * Finished jobs are reloaded after a restart, jobs that were still running are marked as failed.
+ */
+@Slf4j
+@Service
+public class TradeJobService {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Path storageDir;
+    private final long maxInputBytes;
+    private final int maxRejectionSamples;
+    private final TradeProcessor tradeProcessor;
+    private final ExecutorService runner;
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final Map<String, TradeJob> jobs = new ConcurrentHashMap<>();
+
+    public TradeJobService(@Value("${app.jobs.storage-dir}") Path storageDir,
+                           @Value("${app.jobs.max-input-size}") DataSize maxInputSize,
+                           @Value("${app.jobs.max-running}") int maxRunning,
+                           @Value("${app.rejections.max-samples}") int maxRejectionSamples,
+                           TradeProcessor tradeProcessor) {
+        this.storageDir = storageDir;
+        this.maxInputBytes = maxInputSize.toBytes();
+        this.maxRejectionSamples = maxRejectionSamples;
+        this.tradeProcessor = tradeProcessor;
+        this.runner = Executors.newFixedThreadPool(maxRunning, Thread.ofPlatform().name("trade-job-", 1).factory());
+    }
+
+    @PostConstruct
+    public void restoreJobs() throws IOException {
+        Files.createDirectories(storageDir);
+        try (Stream<Path> directories = Files.list(storageDir)) {
+            for (Path directory : directories.filter(Files::isDirectory).toList()) {
+                Path statusFile = directory.resolve(TradeJob.STATUS_FILE);
+                if (!Files.exists(statusFile)) {
+                    continue; // Upload cut short
+                }
+                JobStatus status = objectMapper.readValue(statusFile.toFile(), JobStatus.class);
+                if (!status.state().isFinished()) {
+                    status = status.failed("Interrupted by a restart", Instant.now());
+                    Files.deleteIfExists(directory.resolve(TradeJob.INPUT_FILE));
+                    writeStatus(directory, status);
+                }
+                jobs.put(status.id(), TradeJob.restore(directory, status));
+            }
+        }
+        log.info("Restored {} trade jobs from {}", jobs.size(), storageDir);
+    }
+
+    /**
+     * Stores the trade file and queues it for processing.
+     *
+     * @param format       MIME type of the input
+     * @param resultFormat MIME type of the result
+     * @throws InputTooLargeException when the input exceeds {@code app.jobs.max-input-size}
+     */
+    public JobStatus submit(InputStream input, String format, String resultFormat) throws IOException {
+        // Rejects unsupported formats before storing anything
+        if (!processType(format).isImportable()) {
+            throw new UnsupportedFormatException("Trades cannot be read from " + format);
+        }
+        processType(resultFormat);
+
+        String id = UUID.randomUUID().toString();
+        Path directory = Files.createDirectory(storageDir.resolve(id));
+        long inputBytes;
+        try {
+            inputBytes = store(input, directory.resolve(TradeJob.INPUT_FILE));
+        } catch (IOException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(directory);
+            throw e;
+        }
+
+        TradeJob job = new TradeJob(id, format, resultFormat, directory, inputBytes, new RejectionReport(maxRejectionSamples));
+        persist(job);
+        jobs.put(id, job);
+        runner.execute(() -> run(job));
+        log.info("Queued trade job {} ({} bytes of {}, result as {})", id, inputBytes, format, resultFormat);
+        return job.status();
+    }
+
+    public JobStatus status(String id) {
+        return find(id).status();
+    }
+
+    public List<JobStatus> list() {
+        return jobs.values().stream().map(TradeJob::status).toList();
+    }
+
+    /**
+     * @throws JobNotFinishedException unless the job has succeeded
+     */
+    public Path result(String id) {
+        TradeJob job = find(id);
+        if (job.state() != JobState.SUCCEEDED) {
+            throw new JobNotFinishedException("Job " + id + " has no result, it is " + job.state());
+        }
+        return job.resultFile();
+    }
+
+    /**
+     * Deletes a finished job with its files.
+     *
+     * @throws JobNotFinishedException while the job is queued or running
+     */
+    public void delete(String id) throws IOException {
+        TradeJob job = find(id);
+        if (!job.state().isFinished()) {
+            throw new JobNotFinishedException("Job " + id + " is " + job.state() + ", it can be deleted once finished");
+        }
+        jobs.remove(id);
+        FileSystemUtils.deleteRecursively(job.directory());
+    }
+
+    private static ProcessType processType(String mimeType) {
+        try {
+            return ProcessType.fromMimeType(mimeType);
+        } catch (UnsupportedOperationException e) {
+            throw new UnsupportedFormatException(e.getMessage());
+        }
+    }
+
+    private TradeJob find(String id) {
+        TradeJob job = jobs.get(id);
+        if (job == null) {
+            throw new JobNotFoundException("Unknown job " + id);
+        }
+        return job;
+    }
+
+    private long store(InputStream input, Path file) throws IOException {
+        long total = 0;
+        try (OutputStream output = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                total += read;
+                if (total > maxInputBytes) {
+                    throw new InputTooLargeException("Input exceeds the limit of " + maxInputBytes + " bytes");
+                }
+                output.write(buffer, 0, read);
+            }
+        }
+        return total;
+    }
+
+    private void run(TradeJob job) {
+        job.started();
+        persistQuietly(job);
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(job.resultFile()))) {
+            tradeProcessor.processTrades(job.inputFile(), job.format(), job.resultFormat(), output, job.report());
+            job.succeeded();
+            log.info("Trade job {} finished: {} rows parsed, {} written, {} rejected", job.id(),
+                    job.report().rowsParsed(), job.report().rowsWritten(), job.report().rejectedRows());
+        } catch (InterruptedException e) {
+            job.failed("Interrupted by a shutdown");
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Trade job {} failed: {}", job.id(), e.getMessage(), e);
+            job.failed(e.getMessage());
+        } finally {
+            deleteInput(job);
+            persistQuietly(job);
+        }
+    }
+
+    private void deleteInput(TradeJob job) {
+        try {
+            Files.deleteIfExists(job.inputFile());
+        } catch (IOException e) {
+            log.warn("Could not delete the input of job {}: {}", job.id(), e.getMessage());
+        }
+    }
+
+    private void persist(TradeJob job) {
+        try {
+            writeStatus(job.directory(), job.status());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Persists the status on the runner, where a failure must neither hide the outcome of the job nor stop it from
+     * being recorded in memory; the status on disk is fixed up on the next write or restart.
+     */
+    private void persistQuietly(TradeJob job) {
+        try {
+            writeStatus(job.directory(), job.status());
+        } catch (IOException e) {
+            log.error("Could not persist the status of job {}: {}", job.id(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replaces the status file in one step, so a crash never leaves a partly written status behind.
+     */
+    private void writeStatus(Path directory, JobStatus status) throws IOException {
+        Path tempFile = directory.resolve(TradeJob.STATUS_FILE + ".tmp");
+        objectMapper.writeValue(tempFile.toFile(), status);
+        Files.move(tempFile, directory.resolve(TradeJob.STATUS_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        runner.shutdownNow(); // Running jobs are marked as failed, queued ones on the next start
+        if (!runner.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Trade jobs still running after shutdown");
+        }
+    }
+}
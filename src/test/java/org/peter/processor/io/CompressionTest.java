@@ -0,0 +1,77 @@
+package org.peter.processor.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.peter.processor.exception.UnsupportedFormatException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionTest {
+    private static final String TRADES = "date,productId,currency,price\n20250226,1,USD,10.5\n".repeat(1000);
+
+    @ParameterizedTest
+    @EnumSource(Compression.class)
+    void testEncodeDecode_RoundTrip(Compression compression) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = compression.encode(compressed)) {
+            output.write(TRADES.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertTrue(compressed.size() < TRADES.length() / 10);
+        try (InputStream input = compression.decode(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(TRADES, new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Compression.class)
+    void testEncode_FlushSendsEverythingWrittenSoFar(Compression compression) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        OutputStream output = compression.encode(compressed);
+        output.write("20250226,1,USD,10.5\n".getBytes(StandardCharsets.UTF_8));
+        output.flush();
+
+        InputStream input = compression.decode(new ByteArrayInputStream(compressed.toByteArray()));
+        byte[] line = new byte[20];
+        assertEquals(20, input.readNBytes(line, 0, line.length));
+        assertEquals("20250226,1,USD,10.5\n", new String(line, StandardCharsets.UTF_8));
+        output.close();
+    }
+
+    @Test
+    void testFromContentEncoding() {
+        assertNull(Compression.fromContentEncoding(null));
+        assertNull(Compression.fromContentEncoding("identity"));
+        assertEquals(Compression.GZIP, Compression.fromContentEncoding(" GZIP "));
+        assertEquals(Compression.ZSTD, Compression.fromContentEncoding("zstd"));
+        assertThrows(UnsupportedFormatException.class, () -> Compression.fromContentEncoding("br"));
+    }
+
+    @Test
+    void testFromFileName() {
+        assertEquals(Compression.GZIP, Compression.fromFileName("trades.csv.gz"));
+        assertEquals(Compression.ZSTD, Compression.fromFileName("TRADES.JSON.ZST"));
+        assertNull(Compression.fromFileName("trades.csv"));
+        assertNull(Compression.fromFileName(null));
+    }
+
+    @Test
+    void testNegotiate() {
+        assertNull(Compression.negotiate(null));
+        assertNull(Compression.negotiate("br"));
+        assertNull(Compression.negotiate("gzip;q=0, identity"));
+        assertEquals(Compression.GZIP, Compression.negotiate("gzip, deflate, br"));
+        assertEquals(Compression.ZSTD, Compression.negotiate("gzip, zstd"));
+        assertEquals(Compression.DEFLATE, Compression.negotiate("gzip;q=0.5, deflate;q=0.8"));
+        assertEquals(Compression.ZSTD, Compression.negotiate("*"));
+        assertEquals(Compression.GZIP, Compression.negotiate("zstd;q=0, *;q=0.1"));
+    }
+}
@@ -0,0 +1,99 @@
+package org.peter.processor.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+
+    @Test
+    void testNextRecord_SplitsAndTrimsUnquotedFields() {
+        CsvTokenizer tokenizer = tokenizer("a, b ,c\r\n1,2,3\n");
+
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("1", "2", "3")), records(tokenizer));
+    }
+
+    @Test
+    void testNextRecord_HandlesQuotedFields() {
+        CsvTokenizer tokenizer = tokenizer("\"Acme, Inc.\",\"say \"\"hi\"\"\",\"two\nlines\"\n");
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(3, tokenizer.fieldCount());
+        assertEquals("Acme, Inc.", tokenizer.field(0));
+        assertEquals("say \"hi\"", tokenizer.field(1));
+        assertEquals("two\nlines", tokenizer.field(2));
+        assertArrayEquals("say \"hi\"".getBytes(StandardCharsets.UTF_8), tokenizer.fieldBytes(1));
+        assertFalse(tokenizer.nextRecord());
+    }
+
+    @Test
+    void testNextRecord_KeepsEmptyFieldsAndLastRecordWithoutLineBreak() {
+        CsvTokenizer tokenizer = tokenizer("a,,\n\nx,y");
+
+        assertEquals(List.of(List.of("a", "", ""), List.of(""), List.of("x", "y")), records(tokenizer));
+    }
+
+    @Test
+    void testNextRecord_RecordsSpanningBufferRefills() {
+        StringBuilder csv = new StringBuilder();
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            csv.append(i).append(",\"prodúct ").append(i).append("\",\"q\"\"").append(i).append("\"\n");
+            expected.add(List.of(String.valueOf(i), "prodúct " + i, "q\"" + i));
+        }
+        CsvTokenizer tokenizer = new CsvTokenizer(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), 4);
+
+        assertEquals(expected, records(tokenizer));
+    }
+
+    @Test
+    void testNextRecord_ReadsByteBuffer() {
+        CsvTokenizer tokenizer = new CsvTokenizer(ByteBuffer.wrap("1,2\n3,4\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of(List.of("1", "2"), List.of("3", "4")), records(tokenizer));
+    }
+
+    @Test
+    void testUnsignedIntField_ParsesPlainNumbersOnly() {
+        CsvTokenizer tokenizer = tokenizer(" 42 ,007,abc,1234567890,\"5\",0\n");
+        assertTrue(tokenizer.nextRecord());
+
+        assertEquals(42, tokenizer.unsignedIntField(0));
+        assertEquals(-1, tokenizer.unsignedIntField(1));
+        assertEquals(-1, tokenizer.unsignedIntField(2));
+        assertEquals(-1, tokenizer.unsignedIntField(3));
+        assertEquals(5, tokenizer.unsignedIntField(4));
+        assertEquals(0, tokenizer.unsignedIntField(5));
+    }
+
+    @Test
+    void testRecordText_ReturnsRawRecord() {
+        CsvTokenizer tokenizer = tokenizer("broken line\r\n");
+        assertTrue(tokenizer.nextRecord());
+
+        assertEquals("broken line", tokenizer.recordText());
+        assertThrows(IndexOutOfBoundsException.class, () -> tokenizer.field(1));
+    }
+
+    private static CsvTokenizer tokenizer(String csv) {
+        return new CsvTokenizer(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<List<String>> records(CsvTokenizer tokenizer) {
+        List<List<String>> records = new ArrayList<>();
+        while (tokenizer.nextRecord()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < tokenizer.fieldCount(); i++) {
+                fields.add(tokenizer.field(i));
+            }
+            records.add(fields);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,105 @@
+package org.peter.processor.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamTest {
+    private static final String BOUNDARY = "----FormBoundary7MA4YWxk";
+
+    @Test
+    void testPart_ReturnsNamedPartAfterOtherFields() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"comment\"\r\n\r\n" +
+                "nightly upload\r\n" +
+                "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"trades.csv\"\r\n" +
+                "Content-Type: text/csv\r\n\r\n" +
+                "date,productId,currency,price\r\n20250226,1,USD,10.5\r\n" +
+                "\r\n--" + BOUNDARY + "--\r\n";
+
+        MultipartStream.Part part = new MultipartStream(input(body), BOUNDARY).part("file");
+
+        assertEquals("trades.csv", part.filename());
+        assertEquals("text/csv", part.contentType());
+        assertEquals("date,productId,currency,price\r\n20250226,1,USD,10.5\r\n", read(part.content()));
+    }
+
+    @Test
+    void testPart_DelimiterSpanningReads_IsFound() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            content.append("20250226,").append(i).append(",EUR,1.0\r\n--").append(i).append('\n');
+        }
+        String body = "preamble\r\n--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=file; filename=trades.csv\r\n\r\n" +
+                content +
+                "\r\n--" + BOUNDARY + "--";
+
+        InputStream part = new MultipartStream(new TrickleInputStream(input(body)), BOUNDARY).part("file").content();
+
+        assertEquals(content.toString(), read(part));
+        assertEquals(-1, part.read());
+    }
+
+    @Test
+    void testPart_MissingPart_ReturnsNull() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"comment\"\r\n\r\n" +
+                "no file\r\n" +
+                "--" + BOUNDARY + "--\r\n";
+
+        assertNull(new MultipartStream(input(body), BOUNDARY).part("file"));
+    }
+
+    @Test
+    void testPart_TruncatedBody_Throws() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"\r\n\r\n" +
+                "20250226,1,USD,10.5\r\n";
+
+        InputStream part = new MultipartStream(input(body), BOUNDARY).part("file").content();
+
+        assertThrows(IOException.class, () -> read(part));
+    }
+
+    @Test
+    void testBoundaryOf_ParsesContentType() {
+        assertEquals(BOUNDARY, MultipartStream.boundaryOf("multipart/form-data; boundary=" + BOUNDARY));
+        assertEquals("a b", MultipartStream.boundaryOf("Multipart/Form-Data; charset=UTF-8; boundary=\"a b\""));
+        assertNull(MultipartStream.boundaryOf("text/csv"));
+        assertNull(MultipartStream.boundaryOf("multipart/form-data"));
+        assertNull(MultipartStream.boundaryOf(null));
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(InputStream input) throws IOException {
+        return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hands out a few bytes per read, like a slow network upload.
+     */
+    private static class TrickleInputStream extends FilterInputStream {
+        private int next;
+
+        TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            next = next % 13 + 1;
+            return super.read(buffer, offset, Math.min(length, next));
+        }
+    }
+}
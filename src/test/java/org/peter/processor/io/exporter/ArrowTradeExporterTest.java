@@ -0,0 +1,150 @@
+package org.peter.processor.io.exporter;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.peter.processor.io.exporter.EnrichedTrades.trade;
+
+class ArrowTradeExporterTest {
+
+    private final ArrowTradeExporter arrowTradeExporter = new ArrowTradeExporter("yyyy-MM-dd");
+
+    @AfterEach
+    void tearDown() {
+        arrowTradeExporter.close(); // Fails if a session leaked memory
+    }
+
+    @Test
+    void testBegin_WritesOneRecordBatchPerBatch() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ExportSession session = arrowTradeExporter.begin(output)) {
+            session.writeBatch(List.of(
+                    trade("2025-02-26", "Apple", "USD", "10.5"),
+                    trade("2025-02-27", "Bänana", "EUR", "8.0")
+            ));
+            session.writeBatch(List.of(
+                    trade("2025-02-28", null, "GBP", "1")
+            ));
+            session.end();
+        }
+
+        List<List<List<Object>>> batches = read(output);
+        assertEquals(List.of(
+                List.of(row(LocalDate.of(2025, 2, 26), "Apple", "USD", 10.5, null),
+                        row(LocalDate.of(2025, 2, 27), "Bänana", "EUR", 8.0, null)),
+                List.of(row(LocalDate.of(2025, 2, 28), null, "GBP", 1.0, null))
+        ), batches);
+    }
+
+    @Test
+    void testWriteBatch_PricesThatAreNotPlainDecimals_AreKeptAsText() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ExportSession session = arrowTradeExporter.begin(output)) {
+            session.writeBatch(List.of(
+                    trade("2025-02-26", "Apple", "USD", "-0.000125"),
+                    trade("2025-02-26", "Apple", "USD", "1e3"),
+                    trade("2025-02-26", "Apple", "USD", "1234567890.1234567"),
+                    trade("2025-02-26", "Apple", "USD", "NaN"),
+                    trade("2025-02-26", "Apple", "USD", null)
+            ));
+            session.end();
+        }
+
+        LocalDate date = LocalDate.of(2025, 2, 26);
+        assertEquals(List.of(List.of(
+                row(date, "Apple", "USD", -0.000125, null),
+                row(date, "Apple", "USD", null, "1e3"),
+                row(date, "Apple", "USD", null, "1234567890.1234567"),
+                row(date, "Apple", "USD", null, "NaN"),
+                row(date, "Apple", "USD", null, null)
+        )), read(output));
+    }
+
+    @Test
+    void testExactPrice_AcceptsPlainDecimalsUpToFifteenDigits() {
+        assertEquals(10.5, ArrowTradeExporter.exactPrice("10.5"));
+        assertEquals(-3.0, ArrowTradeExporter.exactPrice("-3."));
+        assertEquals(0.25, ArrowTradeExporter.exactPrice("+.25"));
+        assertEquals(123456789012345.0, ArrowTradeExporter.exactPrice("000123456789012345"));
+        assertNull(ArrowTradeExporter.exactPrice("1234567890123456"));
+        assertNull(ArrowTradeExporter.exactPrice("1.0d"));
+        assertNull(ArrowTradeExporter.exactPrice("0x1p3"));
+        assertNull(ArrowTradeExporter.exactPrice("-"));
+        assertNull(ArrowTradeExporter.exactPrice("1.2.3"));
+    }
+
+    @Test
+    void testWriteTrades_EmptyList_WritesSchemaOnly() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        arrowTradeExporter.writeTrades(output, List.of());
+
+        assertEquals(List.of(), read(output));
+    }
+
+    @Test
+    void testClose_WithoutEnd_ReleasesMemory() throws IOException {
+        ExportSession session = arrowTradeExporter.begin(new ByteArrayOutputStream());
+        session.writeBatch(List.of(trade("2025-02-26", "Apple", "USD", "10.5")));
+        session.close();
+    }
+
+    @Test
+    void testGetType_ReturnsCorrectType() {
+        assertEquals("application/vnd.apache.arrow.stream", arrowTradeExporter.getType());
+    }
+
+    /**
+     * Reads the stream back with the Arrow reader: the rows of each record batch.
+     */
+    private static List<List<List<Object>>> read(ByteArrayOutputStream output) throws IOException {
+        List<List<List<Object>>> batches = new ArrayList<>();
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(output.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(ArrowTradeExporter.SCHEMA, root.getSchema());
+            while (reader.loadNextBatch()) {
+                List<List<Object>> rows = new ArrayList<>();
+                for (int row = 0; row < root.getRowCount(); row++) {
+                    List<Object> values = new ArrayList<>();
+                    for (FieldVector vector : root.getFieldVectors()) {
+                        if (vector.isNull(row)) {
+                            values.add(null);
+                        } else if (vector instanceof DateDayVector dates) {
+                            values.add(LocalDate.ofEpochDay(dates.get(row)));
+                        } else if (vector instanceof VarCharVector texts) {
+                            values.add(texts.getObject(row).toString());
+                        } else {
+                            values.add(vector.getObject(row));
+                        }
+                    }
+                    rows.add(values);
+                }
+                batches.add(rows);
+            }
+        }
+        return batches;
+    }
+
+    private static List<Object> row(Object... values) {
+        return Arrays.asList(values);
+    }
+}
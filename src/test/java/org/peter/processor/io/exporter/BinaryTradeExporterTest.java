@@ -0,0 +1,81 @@
+package org.peter.processor.io.exporter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.peter.processor.io.importer.BinaryTradeImporter;
+import org.peter.processor.model.Trade;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.peter.processor.io.exporter.EnrichedTrades.trade;
+
+class BinaryTradeExporterTest {
+
+    private BinaryTradeExporter binaryTradeExporter;
+    private ByteArrayOutputStream output;
+
+    @BeforeEach
+    void setUp() {
+        binaryTradeExporter = new BinaryTradeExporter();
+        output = new ByteArrayOutputStream();
+    }
+
+    @Test
+    void testWriteTrades_WritesHeaderAndRecords() throws IOException {
+        binaryTradeExporter.writeTrades(output, List.of(trade("20250226", "Apple", "USD", "1.5")));
+
+        byte[] expected = {'T', 'R', 'D', 'B', 1,
+                23,                                       // Body length
+                8, '2', '0', '2', '5', '0', '2', '2', '6',
+                11, 'A', 'p', 'p', 'l', 'e',              // Text product: length 5 << 1 | 1
+                3, 'U', 'S', 'D',
+                3, '1', '.', '5'};
+        assertArrayEquals(expected, output.toByteArray());
+    }
+
+    @Test
+    void testWriteTrades_ReadBackByImporter() throws IOException {
+        String longName = "Bänana ".repeat(40); // Body over 127 bytes, non-ASCII
+        binaryTradeExporter.writeTrades(output, List.of(
+                trade("20250226", "Apple", "USD", "10.5"),
+                trade("20250227", longName, "EUR", "8.0"),
+                trade("20250228", null, "GBP", "1")
+        ));
+
+        List<Trade> result = new BinaryTradeImporter().importData(new ByteArrayInputStream(output.toByteArray())).toList();
+
+        assertEquals(List.of(
+                Trade.of("20250226", "Apple", "USD", "10.5"),
+                Trade.of("20250227", longName, "EUR", "8.0"),
+                Trade.of("20250228", "", "GBP", "1")), result);
+    }
+
+    @Test
+    void testBegin_WritesEachBatchToOutput() throws IOException {
+        ExportSession session = binaryTradeExporter.begin(output);
+        session.writeBatch(List.of(trade("20250226", "Apple", "USD", "10.5")));
+        int afterFirstBatch = output.size();
+        session.writeBatch(List.of(trade("20250227", "Banana", "EUR", "8.0")));
+        session.end();
+
+        assertEquals(5 + 25, afterFirstBatch); // Header and the first record
+        assertEquals(afterFirstBatch + 25, output.size());
+    }
+
+    @Test
+    void testWriteTrades_HandlesEmptyTradeList() throws IOException {
+        binaryTradeExporter.writeTrades(output, List.of());
+
+        assertArrayEquals(new byte[]{'T', 'R', 'D', 'B', 1}, output.toByteArray());
+    }
+
+    @Test
+    void testGetType_ReturnsCorrectType() {
+        assertEquals("application/x-trades-binary", binaryTradeExporter.getType());
+    }
+}
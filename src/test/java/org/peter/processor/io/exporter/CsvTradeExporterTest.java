@@ -2,75 +2,123 @@ package org.peter.processor.io.exporter;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.peter.processor.io.CsvTokenizer;
+import org.peter.processor.io.importer.CsvTradeImporter;
+import org.peter.processor.io.importer.RowIssueListener;
+import org.peter.processor.model.Trade;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.peter.processor.io.exporter.EnrichedTrades.trade;
 
 class CsvTradeExporterTest {
 
     private CsvTradeExporter csvTradeExporter;
-    private StringWriter stringWriter;
-    private BufferedWriter bufferedWriter;
+    private ByteArrayOutputStream output;
 
     @BeforeEach
     void setUp() {
         csvTradeExporter = new CsvTradeExporter();
-        stringWriter = new StringWriter();
-        bufferedWriter = new BufferedWriter(stringWriter);
+        output = new ByteArrayOutputStream();
     }
 
     @Test
     void testWriteTrades_WritesHeaderAndTrades() throws IOException {
-        List<Map<String, String>> trades = List.of(
-                Map.of("date", "2025-02-26", "productName", "Apple", "currency", "USD", "price", "10.5"),
-                Map.of("date", "2025-02-27", "productName", "Banana", "currency", "EUR", "price", "8.0")
+        List<Trade> trades = List.of(
+                trade("2025-02-26", "Apple", "USD", "10.5"),
+                trade("2025-02-27", "Banana", "EUR", "8.0")
         );
 
-        csvTradeExporter.writeTrades(bufferedWriter, trades);
-        bufferedWriter.close();
+        csvTradeExporter.writeTrades(output, trades);
 
         String expectedCsv = """
                 date,productName,currency,price
                 2025-02-26,Apple,USD,10.5
                 2025-02-27,Banana,EUR,8.0
                 """;
-        assertEquals(expectedCsv, stringWriter.toString());
+        assertEquals(expectedCsv, output.toString(StandardCharsets.UTF_8));
     }
 
     @Test
     void testWriteTrades_HandlesEmptyTradeList() throws IOException {
-        List<Map<String, String>> trades = List.of();
+        List<Trade> trades = List.of();
 
-        csvTradeExporter.writeTrades(bufferedWriter, trades);
-        bufferedWriter.close();
+        csvTradeExporter.writeTrades(output, trades);
 
         String expectedCsv = "date,productName,currency,price\n";
-        assertEquals(expectedCsv, stringWriter.toString());
+        assertEquals(expectedCsv, output.toString(StandardCharsets.UTF_8));
     }
 
     @Test
-    void testWriteTrades_WritesToBufferedWriter() throws IOException {
-        StringWriter stringWriter = new StringWriter();
-        BufferedWriter bufferedWriter = new BufferedWriter(stringWriter);
-        List<Map<String, String>> trades = List.of(
-                Map.of("date", "2025-02-26", "productName", "Apple", "currency", "USD", "price", "10.5")
+    void testWriteTrades_WritesToOutputStream() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        List<Trade> trades = List.of(
+                trade("2025-02-26", "Apple", "USD", "10.5")
         );
 
-        csvTradeExporter.writeTrades(bufferedWriter, trades);
-        bufferedWriter.close();
+        csvTradeExporter.writeTrades(output, trades);
 
         String expectedCsv = """
             date,productName,currency,price
             2025-02-26,Apple,USD,10.5
             """;
-        assertEquals(expectedCsv, stringWriter.toString());
+        assertEquals(expectedCsv, output.toString(StandardCharsets.UTF_8));
     }
 
+    @Test
+    void testBegin_WritesBatchesIntoSingleDocument() throws IOException {
+        ExportSession session = csvTradeExporter.begin(output);
+        session.writeBatch(List.of(
+                trade("2025-02-26", "Apple", "USD", "10.5")
+        ));
+        session.writeBatch(List.of(
+                trade("2025-02-27", "Banana", "EUR", "8.0")
+        ));
+        session.end();
+
+        String expectedCsv = """
+                date,productName,currency,price
+                2025-02-26,Apple,USD,10.5
+                2025-02-27,Banana,EUR,8.0
+                """;
+        assertEquals(expectedCsv, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteTrades_QuotesFieldsWithDelimitersQuotesAndLineBreaks() throws IOException {
+        csvTradeExporter.writeTrades(output, List.of(trade("2025-02-26", "Swap \"A\"\nleg", "USD", "1,000.5")));
+
+        assertEquals("date,productName,currency,price\n2025-02-26,\"Swap \"\"A\"\"\nleg\",USD,\"1,000.5\"\n",
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteTrades_QuotedInputRoundTrips() throws IOException {
+        String input = "date,productId,currency,price\n\"2025-02-26\",\"123\",USD,\"1,000.5\"\n";
+        List<Trade> trades = new CsvTradeImporter()
+                .importData(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), RowIssueListener.NONE)
+                .peek(trade -> trade.setProductName(" Commodity, Swaps "))
+                .toList();
+
+        csvTradeExporter.writeTrades(output, trades);
+
+        CsvTokenizer exported = new CsvTokenizer(new ByteArrayInputStream(output.toByteArray()));
+        exported.nextRecord(); // Skip header
+        assertTrue(exported.nextRecord());
+        assertEquals(4, exported.fieldCount());
+        assertEquals("2025-02-26", exported.field(0));
+        assertEquals(" Commodity, Swaps ", exported.field(1));
+        assertEquals("USD", exported.field(2));
+        assertEquals("1,000.5", exported.field(3));
+        assertFalse(exported.nextRecord());
+    }
 
     @Test
     void testGetType_ReturnsCorrectType() {
@@ -0,0 +1,18 @@
+package org.peter.processor.io.exporter;
+
+import org.peter.processor.model.Trade;
+
+/**
+ * Trades as the exporters receive them, i.e. after enrichment.
+ */
+final class EnrichedTrades {
+
+    private EnrichedTrades() {
+    }
+
+    static Trade trade(String date, String productName, String currency, String price) {
+        Trade trade = Trade.of(date, "1", currency, price);
+        trade.setProductName(productName);
+        return trade;
+    }
+}
@@ -1,39 +1,59 @@
 package org.peter.processor.io.exporter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.peter.processor.model.Trade;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.peter.processor.io.exporter.EnrichedTrades.trade;
 
 class JsonTradeExporterTest {
 
     private final JsonTradeExporter jsonTradeExporter = new JsonTradeExporter();
 
     @Test
-    void testWriteTrades_WritesValidJsonToBufferedWriter() throws IOException {
-        StringWriter stringWriter = new StringWriter();
-        BufferedWriter bufferedWriter = new BufferedWriter(stringWriter);
+    void testWriteTrades_WritesValidJsonToOutputStream() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-        List<Map<String, String>> trades = List.of(
-                Map.of("date", "2025-02-26", "productName", "Apple", "currency", "USD", "price", "10.5"),
-                Map.of("date", "2025-02-27", "productName", "Banana", "currency", "EUR", "price", "5.0")
+        List<Trade> trades = List.of(
+                trade("2025-02-26", "Apple", "USD", "10.5"),
+                trade("2025-02-27", "Banana", "EUR", "5.0")
         );
 
-        jsonTradeExporter.writeTrades(bufferedWriter, trades);
-        bufferedWriter.close();
+        jsonTradeExporter.writeTrades(output, trades);
         
-        String expectedJson = new ObjectMapper().writeValueAsString(trades);
-        assertEquals(expectedJson, stringWriter.toString());
+        String expectedJson = "[{\"date\":\"2025-02-26\",\"productName\":\"Apple\",\"currency\":\"USD\",\"price\":\"10.5\"}," +
+                "{\"date\":\"2025-02-27\",\"productName\":\"Banana\",\"currency\":\"EUR\",\"price\":\"5.0\"}]";
+        assertEquals(expectedJson, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testBegin_WritesBatchesIntoSingleArray() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        List<Trade> firstBatch = List.of(
+                trade("2025-02-26", "Apple", "USD", "10.5")
+        );
+        List<Trade> secondBatch = List.of(
+                trade("2025-02-27", "Banana", "EUR", "5.0")
+        );
+
+        ExportSession session = jsonTradeExporter.begin(output);
+        session.writeBatch(firstBatch);
+        session.writeBatch(secondBatch);
+        session.end();
+
+        String expectedJson = "[{\"date\":\"2025-02-26\",\"productName\":\"Apple\",\"currency\":\"USD\",\"price\":\"10.5\"}," +
+                "{\"date\":\"2025-02-27\",\"productName\":\"Banana\",\"currency\":\"EUR\",\"price\":\"5.0\"}]";
+        assertEquals(expectedJson, output.toString(StandardCharsets.UTF_8));
     }
 
     @Test
     void testGetType_ReturnsCorrectType() {
         assertEquals("application/json", jsonTradeExporter.getType());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package org.peter.processor.io.exporter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.peter.processor.io.exporter.EnrichedTrades.trade;
+
+class NdjsonTradeExporterTest {
+
+    private NdjsonTradeExporter ndjsonTradeExporter;
+    private ByteArrayOutputStream output;
+
+    @BeforeEach
+    void setUp() {
+        ndjsonTradeExporter = new NdjsonTradeExporter();
+        output = new ByteArrayOutputStream();
+    }
+
+    @Test
+    void testWriteTrades_WritesOneObjectPerLine() throws IOException {
+        ndjsonTradeExporter.writeTrades(output, List.of(
+                trade("2025-02-26", "Apple", "USD", "10.5"),
+                trade("2025-02-27", "Banana", "EUR", "8.0")
+        ));
+
+        String expected = """
+                {"date":"2025-02-26","productName":"Apple","currency":"USD","price":"10.5"}
+                {"date":"2025-02-27","productName":"Banana","currency":"EUR","price":"8.0"}
+                """;
+        assertEquals(expected, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testBegin_FlushesCompleteLinesPerBatch() throws IOException {
+        ExportSession session = ndjsonTradeExporter.begin(output);
+        session.writeBatch(List.of(trade("2025-02-26", "Apple", "USD", "10.5")));
+
+        assertEquals("{\"date\":\"2025-02-26\",\"productName\":\"Apple\",\"currency\":\"USD\",\"price\":\"10.5\"}\n",
+                output.toString(StandardCharsets.UTF_8));
+
+        session.writeBatch(List.of(trade("2025-02-27", "Banana", "EUR", "8.0")));
+        session.end();
+
+        assertEquals(2, output.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void testWriteTrades_HandlesEmptyTradeList() throws IOException {
+        ndjsonTradeExporter.writeTrades(output, List.of());
+
+        assertEquals("", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGetType_ReturnsCorrectType() {
+        assertEquals("application/x-ndjson", ndjsonTradeExporter.getType());
+    }
+}
@@ -1,15 +1,17 @@
 package org.peter.processor.io.exporter;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.junit.jupiter.api.Test;
+import org.peter.processor.model.Trade;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.peter.processor.io.exporter.EnrichedTrades.trade;
 
 import org.junit.jupiter.api.BeforeEach;
 
@@ -18,58 +20,97 @@ class XmlTradeExporterTest {
 
     @BeforeEach
     void setUp() {
-        exporter = new XmlTradeExporter();
+        exporter = new XmlTradeExporter(false);
     }
 
     @Test
     void testWriteTrades() throws IOException {
-        StringWriter stringWriter = new StringWriter();
-        BufferedWriter writer = new BufferedWriter(stringWriter);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-        List<Map<String, String>> trades = List.of(
-                Map.of("date", "2024-02-25", "productName", "Apple", "currency", "USD", "price", "10.50"),
-                Map.of("date", "2024-02-26", "productName", "Banana", "currency", "EUR", "price", "8.30")
+        List<Trade> trades = List.of(
+                trade("2024-02-25", "Apple", "USD", "10.50"),
+                trade("2024-02-26", "Banana & Co", "EUR", "8.30")
         );
 
-        exporter.writeTrades(writer, trades);
-        writer.close();
+        exporter.writeTrades(output, trades);
+
+        String expectedXml = "<Trades>" +
+                "<Trade><date>2024-02-25</date><price>10.50</price><currency>USD</currency><productName>Apple</productName></Trade>" +
+                "<Trade><date>2024-02-26</date><price>8.30</price><currency>EUR</currency><productName>Banana &amp; Co</productName></Trade>" +
+                "</Trades>";
+        assertEquals(expectedXml, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteTrades_PrettyPrint() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new XmlTradeExporter(true).writeTrades(output, List.of(
+                trade("2024-02-25", "Apple", "USD", "10.50"),
+                trade("2024-02-26", null, "EUR", "8.30")
+        ));
 
         String expectedXml = """
                 <Trades>
-                <Trade>
-                  <date>2024-02-25</date>
-                  <price>10.50</price>
-                  <currency>USD</currency>
-                  <productName>Apple</productName>
-                </Trade>
-                
-                <Trade>
-                  <date>2024-02-26</date>
-                  <price>8.30</price>
-                  <currency>EUR</currency>
-                  <productName>Banana</productName>
-                </Trade>
-                
+                  <Trade>
+                    <date>2024-02-25</date>
+                    <price>10.50</price>
+                    <currency>USD</currency>
+                    <productName>Apple</productName>
+                  </Trade>
+                  <Trade>
+                    <date>2024-02-26</date>
+                    <price>8.30</price>
+                    <currency>EUR</currency>
+                    <productName></productName>
+                  </Trade>
                 </Trades>
-                """.trim();
-
-        assertEquals(expectedXml, stringWriter.toString().trim());
+                """;
+        assertEquals(expectedXml, output.toString(StandardCharsets.UTF_8));
     }
 
     @Test
     void testWriteTradesEmptyList() throws IOException {
-        StringWriter stringWriter = new StringWriter();
-        BufferedWriter writer = new BufferedWriter(stringWriter);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exporter.writeTrades(output, List.of());
+
+        assertEquals("<Trades/>", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testBegin_WritesBatchesUnderSingleRoot() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ExportSession session = exporter.begin(output)) {
+            session.writeBatch(List.of(
+                    trade("2024-02-25", "Apple", "USD", "10.50")
+            ));
+            int afterFirstBatch = output.size();
+            session.writeBatch(List.of());
+            assertEquals(afterFirstBatch, output.size());
+            session.end();
+        }
+
+        String expectedXml = "<Trades>" +
+                "<Trade><date>2024-02-25</date><price>10.50</price><currency>USD</currency><productName>Apple</productName></Trade>" +
+                "</Trades>";
+        assertEquals(expectedXml, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteTrades_IsReadBackByXmlMapper() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-        exporter.writeTrades(writer, List.of());
-        writer.close();
+        exporter.writeTrades(output, List.of(trade("2024-02-25", "<Apple>", "USD", "10.50")));
 
-        String expectedXml = "<Trades>\n</Trades>";
-        assertEquals(expectedXml, stringWriter.toString().trim());
+        JsonNode trade = new XmlMapper().readTree(output.toByteArray()).get("Trade");
+        assertEquals("<Apple>", trade.get("productName").asText());
+        assertEquals("10.50", trade.get("price").asText());
     }
 
     @Test
     void testGetType_ReturnsCorrectType() {
         assertEquals("application/xml", exporter.getType());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package org.peter.processor.io.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.peter.processor.io.BinaryTradeFormat;
+import org.peter.processor.model.Trade;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTradeImporterTest {
+
+    private final BinaryTradeImporter binaryTradeImporter = new BinaryTradeImporter();
+
+    @Test
+    void testImportData_ValidRecords_ReturnsCorrectData() throws IOException {
+        byte[] input = encode(new BinaryTradeFormat.Encoder().header()
+                .record("20250226", 123, "USD", "10.5")
+                .record("20250227", "A-1", "EUR", "5.0")
+                .record("20250228", "456", "GBP", "1"));
+
+        List<Trade> result = binaryTradeImporter.importData(new ByteArrayInputStream(input)).toList();
+
+        assertEquals(List.of(
+                Trade.of("20250226", "123", "USD", "10.5"),
+                Trade.of("20250227", "A-1", "EUR", "5.0"),
+                Trade.of("20250228", "456", "GBP", "1")), result);
+        assertTrue(result.get(2).hasNumericProductId());
+    }
+
+    @Test
+    void testImportData_MalformedRecord_IsSkippedAndReported() throws IOException {
+        byte[] input = {'T', 'R', 'D', 'B', 1,
+                3, 1, '1', 0,                                  // Ends after the product id
+                7, 1, '2', 2, 3, 'U', 'S', 'D'};               // Price missing, cut by the record length
+        byte[] valid = encode(new BinaryTradeFormat.Encoder().record("20250226", 1, "USD", "10.5"));
+        List<String> rejected = new ArrayList<>();
+
+        List<Trade> result = binaryTradeImporter.importData(new ByteArrayInputStream(concat(input, valid)),
+                (issue, row) -> rejected.add(issue + ": " + row)).toList();
+
+        assertEquals(List.of(Trade.of("20250226", 1, "USD", "10.5")), result);
+        assertEquals(List.of("MALFORMED_ROW: record at byte 5", "MALFORMED_ROW: record at byte 9"), rejected);
+    }
+
+    @Test
+    void testImportData_RecordsCutByReads_AreReassembled() throws IOException {
+        BinaryTradeFormat.Encoder encoder = new BinaryTradeFormat.Encoder().header();
+        List<Trade> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            encoder.record("20250226", i, "USD", i + ".5");
+            expected.add(Trade.of("20250226", i, "USD", i + ".5"));
+        }
+        encoder.record("20250227", "x".repeat(200_000), "EUR", "1"); // Larger than the read buffer
+        expected.add(Trade.of("20250227", "x".repeat(200_000), "EUR", "1"));
+        InputStream input = new TrickleInputStream(new ByteArrayInputStream(encode(encoder)), 7);
+
+        assertEquals(expected, binaryTradeImporter.importData(input).toList());
+    }
+
+    @Test
+    void testImportData_EmptyInput_ReturnsEmptyStream() {
+        assertTrue(binaryTradeImporter.importData(new ByteArrayInputStream(new byte[0])).toList().isEmpty());
+        assertTrue(binaryTradeImporter.importData(new ByteArrayInputStream(BinaryTradeFormat.HEADER)).toList().isEmpty());
+    }
+
+    @Test
+    void testImportData_OtherFormat_Fails() {
+        byte[] csv = "date,productId,currency,price\n".getBytes();
+
+        Stream<Trade> trades = binaryTradeImporter.importData(new ByteArrayInputStream(csv));
+
+        assertThrows(UncheckedIOException.class, trades::toList);
+    }
+
+    @Test
+    void testImportData_TruncatedRecord_Fails() throws IOException {
+        byte[] input = encode(new BinaryTradeFormat.Encoder().header()
+                .record("20250226", 1, "USD", "10.5")
+                .record("20250227", 2, "EUR", "5.0"));
+        byte[] truncated = Arrays.copyOf(input, input.length - 2);
+
+        Stream<Trade> trades = binaryTradeImporter.importData(new ByteArrayInputStream(truncated));
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, trades::toList);
+        assertTrue(e.getMessage().contains("ends within the record"));
+    }
+
+    @Test
+    void testImportFile_ReadsMappedFile(@TempDir Path tempDir) throws IOException {
+        BinaryTradeFormat.Encoder encoder = new BinaryTradeFormat.Encoder().header();
+        List<Trade> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            encoder.record("20250226", i, "EUR", "1.0");
+            expected.add(Trade.of("20250226", i, "EUR", "1.0"));
+        }
+        Path file = Files.write(tempDir.resolve("trades.bin"), encode(encoder));
+
+        try (Stream<Trade> trades = binaryTradeImporter.importData(file)) {
+            assertEquals(expected, trades.toList());
+        }
+    }
+
+    @Test
+    void testGetType_ReturnsCorrectType() {
+        assertEquals("application/x-trades-binary", binaryTradeImporter.getType());
+    }
+
+    private static byte[] encode(BinaryTradeFormat.Encoder encoder) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        encoder.writeTo(output);
+        return output.toByteArray();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Returns at most a few bytes per read, like a slow upload.
+     */
+    private static class TrickleInputStream extends FilterInputStream {
+        private final int maxRead;
+
+        TrickleInputStream(InputStream in, int maxRead) {
+            super(in);
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            return super.read(bytes, offset, Math.min(length, maxRead));
+        }
+    }
+}
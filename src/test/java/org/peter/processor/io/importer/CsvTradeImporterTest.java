@@ -1,11 +1,18 @@
 package org.peter.processor.io.importer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.peter.processor.model.Trade;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,11 +27,11 @@ class CsvTradeImporterTest {
                 "2025-02-27,456,EUR,5.0\n";
         InputStream inputStream = new ByteArrayInputStream(csvData.getBytes());
 
-        List<Map<String, String>> result = csvTradeImporter.importData(inputStream).toList();
+        List<Trade> result = csvTradeImporter.importData(inputStream).toList();
 
         assertEquals(2, result.size());
-        assertEquals(Map.of("date", "2025-02-26", "productId", "123", "currency", "USD", "price", "10.5"), result.get(0));
-        assertEquals(Map.of("date", "2025-02-27", "productId", "456", "currency", "EUR", "price", "5.0"), result.get(1));
+        assertEquals(Trade.of("2025-02-26", "123", "USD", "10.5"), result.get(0));
+        assertEquals(Trade.of("2025-02-27", "456", "EUR", "5.0"), result.get(1));
     }
 
     @Test
@@ -35,11 +42,39 @@ class CsvTradeImporterTest {
                 "2025-02-27,456,EUR,5.0\n";
         InputStream inputStream = new ByteArrayInputStream(csvData.getBytes());
 
-        List<Map<String, String>> result = csvTradeImporter.importData(inputStream).toList();
+        List<Trade> result = csvTradeImporter.importData(inputStream).toList();
 
         assertEquals(2, result.size());
-        assertEquals(Map.of("date", "2025-02-26", "productId", "123", "currency", "USD", "price", "10.5"), result.get(0));
-        assertEquals(Map.of("date", "2025-02-27", "productId", "456", "currency", "EUR", "price", "5.0"), result.get(1));
+        assertEquals(Trade.of("2025-02-26", "123", "USD", "10.5"), result.get(0));
+        assertEquals(Trade.of("2025-02-27", "456", "EUR", "5.0"), result.get(1));
+    }
+
+    @Test
+    void testImportData_InvalidLine_IsReportedToListener() {
+        String csvData = "date,productId,currency,price\n" +
+                "2025-02-26,123,USD,10.5\n" +
+                "Invalid line with missing fields\n";
+        InputStream inputStream = new ByteArrayInputStream(csvData.getBytes());
+        List<String> rejected = new ArrayList<>();
+
+        List<Trade> result = csvTradeImporter.importData(inputStream, (issue, row) -> rejected.add(issue + ": " + row)).toList();
+
+        assertEquals(1, result.size());
+        assertEquals(List.of("MALFORMED_ROW: Invalid line with missing fields"), rejected);
+    }
+
+    @Test
+    void testImportData_QuotedFields_AreUnquoted() {
+        String csvData = "date,productId,currency,price\n" +
+                "\"2025-02-26\",\"123\",USD,\"1,000.5\"\n" +
+                "2025-02-27,\"A-1\",EUR,5.0\n";
+        InputStream inputStream = new ByteArrayInputStream(csvData.getBytes());
+
+        List<Trade> result = csvTradeImporter.importData(inputStream).toList();
+
+        assertEquals(List.of(Trade.of("2025-02-26", "123", "USD", "1,000.5"), Trade.of("2025-02-27", "A-1", "EUR", "5.0")),
+                result);
+        assertTrue(result.get(0).hasNumericProductId());
     }
 
     @Test
@@ -47,11 +82,86 @@ class CsvTradeImporterTest {
         String csvData = "date,productId,currency,price\n";
         InputStream inputStream = new ByteArrayInputStream(csvData.getBytes());
 
-        List<Map<String, String>> result = csvTradeImporter.importData(inputStream).toList();
+        List<Trade> result = csvTradeImporter.importData(inputStream).toList();
 
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void testImportFile_ParallelStream_KeepsFileOrder(@TempDir Path tempDir) throws IOException {
+        StringBuilder csvData = new StringBuilder("date,productId,currency,price\r\n");
+        List<Trade> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            csvData.append("20250226,").append(i).append(",USD,").append(i).append(".5\r\n");
+            expected.add(Trade.of("20250226", String.valueOf(i), "USD", i + ".5"));
+        }
+        Path file = Files.writeString(tempDir.resolve("trades.csv"), csvData);
+
+        try (Stream<Trade> trades = csvTradeImporter.importData(file)) {
+            assertTrue(trades.isParallel());
+            assertEquals(expected, trades.toList());
+        }
+    }
+
+    @Test
+    void testImportFile_SplitsOnLineBoundaries(@TempDir Path tempDir) throws IOException {
+        StringBuilder csvData = new StringBuilder("date,productId,currency,price\n");
+        for (int i = 0; i < 20_000; i++) {
+            csvData.append("20250226,").append(i).append(",EUR,1.0\n");
+        }
+        csvData.append("20250227,last,EUR,2.0"); // No trailing line break
+        Path file = Files.writeString(tempDir.resolve("trades.csv"), csvData);
+
+        try (Stream<Trade> trades = csvTradeImporter.importData(file)) {
+            Spliterator<Trade> suffix = trades.spliterator();
+            Spliterator<Trade> prefix = suffix.trySplit();
+            assertNotNull(prefix);
+
+            List<Trade> result = new ArrayList<>();
+            prefix.forEachRemaining(result::add);
+            suffix.forEachRemaining(result::add);
+
+            assertEquals(20_001, result.size());
+            assertEquals(Trade.of("20250226", "0", "EUR", "1.0"), result.get(0));
+            assertEquals(Trade.of("20250227", "last", "EUR", "2.0"), result.get(20_000));
+        }
+    }
+
+    @Test
+    void testImportFile_QuotedLineBreakAcrossTheMiddle_IsKeptInOneField(@TempDir Path tempDir) throws IOException {
+        StringBuilder csvData = new StringBuilder("date,productId,currency,price\n");
+        List<Trade> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            if (i == 10_000) {
+                StringBuilder price = new StringBuilder();
+                for (int line = 0; line < 1000; line++) {
+                    price.append("20250226,").append(line).append(",USD,1.0\n"); // Looks like rows when cut within
+                }
+                csvData.append("20250226,").append(i).append(",USD,\"").append(price).append("\"\n");
+                expected.add(Trade.of("20250226", String.valueOf(i), "USD", price.toString()));
+                continue;
+            }
+            csvData.append("20250226,").append(i).append(",USD,1.0\n");
+            expected.add(Trade.of("20250226", String.valueOf(i), "USD", "1.0"));
+        }
+        Path file = Files.writeString(tempDir.resolve("trades.csv"), csvData);
+        List<String> rejected = new ArrayList<>();
+
+        try (Stream<Trade> trades = csvTradeImporter.importData(file, (issue, row) -> rejected.add(row))) {
+            Spliterator<Trade> suffix = trades.spliterator();
+            Spliterator<Trade> prefix = suffix.trySplit();
+
+            List<Trade> result = new ArrayList<>();
+            if (prefix != null) {
+                prefix.forEachRemaining(result::add);
+            }
+            suffix.forEachRemaining(result::add);
+
+            assertEquals(expected, result);
+            assertEquals(List.of(), rejected);
+        }
+    }
+
     @Test
     void testGetType_ReturnsCorrectType() {
         assertEquals("text/csv", csvTradeImporter.getType());
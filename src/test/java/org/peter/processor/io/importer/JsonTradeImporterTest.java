@@ -1,11 +1,13 @@
 package org.peter.processor.io.importer;
 
 import org.junit.jupiter.api.Test;
+import org.peter.processor.model.Trade;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,11 +22,11 @@ class JsonTradeImporterTest {
                 "{\"date\":\"2025-02-27\",\"productId\":\"456\",\"currency\":\"EUR\",\"price\":\"5.0\"}]";
         InputStream inputStream = new ByteArrayInputStream(jsonData.getBytes());
 
-        List<Map<String, String>> result = jsonTradeImporter.importData(inputStream).toList();
+        List<Trade> result = jsonTradeImporter.importData(inputStream).toList();
 
         assertEquals(2, result.size());
-        assertEquals(Map.of("date", "2025-02-26", "productId", "123", "currency", "USD", "price", "10.5"), result.get(0));
-        assertEquals(Map.of("date", "2025-02-27", "productId", "456", "currency", "EUR", "price", "5.0"), result.get(1));
+        assertEquals(Trade.of("2025-02-26", "123", "USD", "10.5"), result.get(0));
+        assertEquals(Trade.of("2025-02-27", "456", "EUR", "5.0"), result.get(1));
     }
 
     @Test
@@ -32,19 +34,80 @@ class JsonTradeImporterTest {
         String jsonData = "[]";
         InputStream inputStream = new ByteArrayInputStream(jsonData.getBytes());
 
-        List<Map<String, String>> result = jsonTradeImporter.importData(inputStream).toList();
+        List<Trade> result = jsonTradeImporter.importData(inputStream).toList();
 
         assertTrue(result.isEmpty());
     }
 
     @Test
     void testImportData_InvalidJson_ThrowsException() {
-        String invalidJsonData = "{ \"date\": \"2025-02-26\" }";
+        String invalidJsonData = "[{ \"date\": \"2025-02-26\", }";
         InputStream inputStream = new ByteArrayInputStream(invalidJsonData.getBytes());
 
         assertThrows(RuntimeException.class, () -> jsonTradeImporter.importData(inputStream).toList());
     }
 
+    @Test
+    void testImportData_ScalarDocument_ThrowsException() {
+        InputStream inputStream = new ByteArrayInputStream("\"trades\"".getBytes());
+
+        assertThrows(UncheckedIOException.class, () -> jsonTradeImporter.importData(inputStream).toList());
+    }
+
+    @Test
+    void testImportData_NewlineDelimited_ReturnsCorrectData() {
+        String jsonData = """
+                {"date":"2025-02-26","productId":"123","currency":"USD","price":"10.5"}
+                {"date":"2025-02-27","productId":"456","currency":"EUR","price":"5.0"}
+                """;
+        InputStream inputStream = new ByteArrayInputStream(jsonData.getBytes());
+
+        List<Trade> result = jsonTradeImporter.importData(inputStream).toList();
+
+        assertEquals(List.of(Trade.of("2025-02-26", "123", "USD", "10.5"), Trade.of("2025-02-27", "456", "EUR", "5.0")),
+                result);
+    }
+
+    @Test
+    void testImportData_ScalarValues_KeepTheirText() {
+        String jsonData = "[{\"price\":10.50,\"currency\":\"USD\",\"productId\":123,\"date\":\"20250226\",\"note\":{\"a\":[1]}}," +
+                "{\"date\":\"20250227\",\"productId\":\"A-1\",\"currency\":\"EUR\",\"price\":\"5.0\"}]";
+        InputStream inputStream = new ByteArrayInputStream(jsonData.getBytes());
+
+        List<Trade> result = jsonTradeImporter.importData(inputStream).toList();
+
+        assertEquals(List.of(Trade.of("20250226", "123", "USD", "10.50"), Trade.of("20250227", "A-1", "EUR", "5.0")),
+                result);
+        assertTrue(result.get(0).hasNumericProductId());
+    }
+
+    @Test
+    void testImportData_InvalidRecords_AreReportedAndSkipped() {
+        String jsonData = """
+                {"date":"2025-02-26","currency":"USD","price":"10.5"}
+                42
+                {"date":"2025-02-26","productId":{"id":1},"currency":"USD","price":"10.5"}
+                {"date":"2025-02-27","productId":"456","currency":"EUR","price":"5.0"}
+                """;
+        InputStream inputStream = new ByteArrayInputStream(jsonData.getBytes());
+        List<String> rejected = new ArrayList<>();
+
+        List<Trade> result = jsonTradeImporter.importData(inputStream, (issue, row) -> rejected.add(issue + ": " + row)).toList();
+
+        assertEquals(List.of(Trade.of("2025-02-27", "456", "EUR", "5.0")), result);
+        assertEquals(List.of(
+                "MALFORMED_ROW: record at byte 0: missing field",
+                "MALFORMED_ROW: record at byte " + jsonData.indexOf("42") + ": not an object",
+                "MALFORMED_ROW: record at byte " + jsonData.indexOf("{", 1) + ": nested value in productId"), rejected);
+    }
+
+    @Test
+    void testImportData_EmptyInput_ReturnsEmptyStream() {
+        InputStream inputStream = new ByteArrayInputStream(" \n".getBytes());
+
+        assertTrue(jsonTradeImporter.importData(inputStream).toList().isEmpty());
+    }
+
     @Test
     void testGetType_ReturnsCorrectType() {
         assertEquals("application/json", jsonTradeImporter.getType());
@@ -0,0 +1,146 @@
+package org.peter.processor.io.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.peter.processor.model.Trade;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonTradeImporterTest {
+
+    private final NdjsonTradeImporter ndjsonTradeImporter = new NdjsonTradeImporter();
+
+    @Test
+    void testImportData_OneObjectPerLine_ReturnsCorrectData() {
+        String ndjsonData = """
+                {"date":"2025-02-26","productId":"123","currency":"USD","price":"10.5"}
+                {"date":"2025-02-27","productId":456,"currency":"EUR","price":5.0}
+                """;
+        InputStream inputStream = new ByteArrayInputStream(ndjsonData.getBytes());
+
+        List<Trade> result = ndjsonTradeImporter.importData(inputStream).toList();
+
+        assertEquals(List.of(Trade.of("2025-02-26", "123", "USD", "10.5"), Trade.of("2025-02-27", "456", "EUR", "5.0")),
+                result);
+    }
+
+    @Test
+    void testImportData_ArrayLine_IsReportedAndSkipped() {
+        String ndjsonData = """
+                [{"date":"2025-02-26","productId":"123","currency":"USD","price":"10.5"}]
+                {"date":"2025-02-27","productId":"456","currency":"EUR","price":"5.0"}
+                """;
+        InputStream inputStream = new ByteArrayInputStream(ndjsonData.getBytes());
+        List<String> rejected = new ArrayList<>();
+
+        List<Trade> result = ndjsonTradeImporter.importData(inputStream, (issue, row) -> rejected.add(issue + ": " + row)).toList();
+
+        assertEquals(List.of(Trade.of("2025-02-27", "456", "EUR", "5.0")), result);
+        assertEquals(List.of("MALFORMED_ROW: record at byte 0: not an object"), rejected);
+    }
+
+    @Test
+    void testImportData_InvalidJsonLine_IsReportedAndSkipped() {
+        String ndjsonData = """
+                {"date":"2025-02-26","productId":"123","currency":"USD","price":"10.5"}
+                {"date":"2025-02-26","productId":
+                not json
+
+                {"date":"2025-02-27","productId":"456","currency":"EUR","price":"5.0"} {"date":"2025-02-27"}
+                {"date":"2025-02-28","productId":"789","currency":"GBP","price":"1.0"}""";
+        InputStream inputStream = new ByteArrayInputStream(ndjsonData.getBytes());
+        List<String> rejected = new ArrayList<>();
+
+        List<Trade> result = ndjsonTradeImporter.importData(inputStream, (issue, row) -> rejected.add(issue + ": " + row)).toList();
+
+        assertEquals(List.of(Trade.of("2025-02-26", "123", "USD", "10.5"), Trade.of("2025-02-28", "789", "GBP", "1.0")),
+                result);
+        assertEquals(3, rejected.size());
+        assertTrue(rejected.get(0).startsWith("MALFORMED_ROW: record at byte " + ndjsonData.indexOf("{", 1) + ": invalid JSON: "));
+        assertTrue(rejected.get(1).startsWith("MALFORMED_ROW: record at byte " + ndjsonData.indexOf("not json") + ": invalid JSON: "));
+        assertEquals("MALFORMED_ROW: record at byte " + ndjsonData.indexOf("{\"date\":\"2025-02-27\"")
+                + ": more than one value on the line", rejected.get(2));
+    }
+
+    @Test
+    void testImportFile_InvalidJsonLines_AreSkippedInEveryChunk(@TempDir Path tempDir) throws IOException {
+        StringBuilder ndjsonData = new StringBuilder();
+        List<Trade> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            if (i % 5_000 == 2_500) {
+                ndjsonData.append("{\"date\":\"20250226\",\"productId\":").append(i).append(",\"curr\n");
+                continue;
+            }
+            ndjsonData.append("{\"date\":\"20250226\",\"productId\":").append(i)
+                    .append(",\"currency\":\"USD\",\"price\":\"1.0\"}\n");
+            expected.add(Trade.of("20250226", String.valueOf(i), "USD", "1.0"));
+        }
+        Path file = Files.writeString(tempDir.resolve("trades.ndjson"), ndjsonData);
+        List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+
+        try (Stream<Trade> trades = ndjsonTradeImporter.importData(file, (issue, row) -> rejected.add(row))) {
+            assertEquals(expected, trades.toList());
+        }
+        assertEquals(4, rejected.size());
+    }
+
+    @Test
+    void testImportFile_ParallelStream_KeepsFileOrder(@TempDir Path tempDir) throws IOException {
+        StringBuilder ndjsonData = new StringBuilder();
+        List<Trade> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            ndjsonData.append("{\"date\":\"20250226\",\"productId\":").append(i)
+                    .append(",\"currency\":\"USD\",\"price\":\"").append(i).append(".5\"}\n");
+            expected.add(Trade.of("20250226", String.valueOf(i), "USD", i + ".5"));
+        }
+        Path file = Files.writeString(tempDir.resolve("trades.ndjson"), ndjsonData);
+
+        try (Stream<Trade> trades = ndjsonTradeImporter.importData(file)) {
+            assertTrue(trades.isParallel());
+            assertEquals(expected, trades.toList());
+        }
+    }
+
+    @Test
+    void testImportFile_SplitsOnLineBoundaries(@TempDir Path tempDir) throws IOException {
+        StringBuilder ndjsonData = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            ndjsonData.append("{\"date\":\"20250226\",\"productId\":\"").append(i).append("\",\"currency\":\"EUR\",\"price\":\"1.0\"}\n");
+        }
+        ndjsonData.append("{\"date\":\"20250227\",\"productId\":\"last\",\"currency\":\"EUR\",\"price\":\"2.0\"}"); // No trailing line break
+        Path file = Files.writeString(tempDir.resolve("trades.ndjson"), ndjsonData);
+        List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+
+        try (Stream<Trade> trades = ndjsonTradeImporter.importData(file, (issue, row) -> rejected.add(row))) {
+            Spliterator<Trade> suffix = trades.spliterator();
+            Spliterator<Trade> prefix = suffix.trySplit();
+            assertNotNull(prefix);
+
+            List<Trade> result = new ArrayList<>();
+            prefix.forEachRemaining(result::add);
+            int prefixSize = result.size();
+            suffix.forEachRemaining(result::add);
+
+            assertTrue(prefixSize > 0 && prefixSize < result.size());
+            assertEquals(20_001, result.size());
+            assertEquals(Trade.of("20250227", "last", "EUR", "2.0"), result.get(20_000));
+            assertEquals(List.of(), rejected);
+        }
+    }
+
+    @Test
+    void testGetType_ReturnsCorrectType() {
+        assertEquals("application/x-ndjson", ndjsonTradeImporter.getType());
+    }
+}
@@ -3,11 +3,15 @@ package org.peter.processor.io.importer;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
+import org.peter.processor.model.Trade;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 class XmlTradeImporterTest {
 
@@ -21,11 +25,11 @@ class XmlTradeImporterTest {
                 + "</Trades>";
         InputStream inputStream = new ByteArrayInputStream(xmlData.getBytes());
 
-        List<Map<String, String>> result = xmlTradeImporter.importData(inputStream).toList();
+        List<Trade> result = xmlTradeImporter.importData(inputStream).toList();
 
         assertEquals(2, result.size());
-        assertEquals(Map.of("date", "2025-02-26", "productId", "123", "currency", "USD", "price", "10.5"), result.get(0));
-        assertEquals(Map.of("date", "2025-02-27", "productId", "456", "currency", "EUR", "price", "5.0"), result.get(1));
+        assertEquals(Trade.of("2025-02-26", "123", "USD", "10.5"), result.get(0));
+        assertEquals(Trade.of("2025-02-27", "456", "EUR", "5.0"), result.get(1));
     }
 
     @Test
@@ -33,7 +37,7 @@ class XmlTradeImporterTest {
         String xmlData = "<Trades></Trades>";
         InputStream inputStream = new ByteArrayInputStream(xmlData.getBytes());
 
-        List<Map<String, String>> result = xmlTradeImporter.importData(inputStream).toList();
+        List<Trade> result = xmlTradeImporter.importData(inputStream).toList();
 
         assertTrue(result.isEmpty());
     }
@@ -46,6 +50,91 @@ class XmlTradeImporterTest {
         assertThrows(RuntimeException.class, () -> xmlTradeImporter.importData(inputStream).toList());
     }
 
+    @Test
+    void testImportData_MalformedRecords_AreReportedAndSkipped() {
+        String xmlData = "<Trades>"
+                + "<Trade><date>2025-02-26</date><productId>123</productId><currency>USD</currency></Trade>"
+                + "<Trade><date>2025-02-26</date><productId><id>1</id></productId><currency>USD</currency><price>1</price></Trade>"
+                + "<Order/>"
+                + "<Trade><note>kept</note><date>2025-02-27</date><productId>ABC</productId><currency>EUR</currency><price>5.0</price></Trade>"
+                + "</Trades>";
+        InputStream inputStream = new ByteArrayInputStream(xmlData.getBytes());
+        List<String> rejected = new ArrayList<>();
+
+        List<Trade> result = xmlTradeImporter.importData(inputStream, (issue, row) -> rejected.add(issue + ": " + row)).toList();
+
+        assertEquals(List.of(Trade.of("2025-02-27", "ABC", "EUR", "5.0")), result);
+        assertEquals(List.of("MALFORMED_ROW: record at offset 8: missing field",
+                "MALFORMED_ROW: record at offset 96: nested element in productId",
+                "MALFORMED_ROW: record at offset 207: not a trade: <Order>"), rejected);
+    }
+
+    @Test
+    void testImportData_LargeInput_ParsedInOrderedChunks() {
+        StringBuilder xmlData = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Trades>\n");
+        List<Trade> expected = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            xmlData.append("  <Trade>\n    <date>20250226</date>\n    <productId>").append(i)
+                    .append("</productId>\n    <currency>USD</currency>\n    <price>").append(i).append(".5</price>\n  </Trade>\n");
+            expected.add(Trade.of("20250226", String.valueOf(i), "USD", i + ".5"));
+        }
+        xmlData.append("  <Trade><date>20250227</date></Trade>\n</Trades>\n<!-- end -->\n");
+        byte[] bytes = xmlData.toString().getBytes(StandardCharsets.UTF_8);
+        List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+
+        try (Stream<Trade> trades = xmlTradeImporter.importData(new ByteArrayInputStream(bytes), (issue, row) -> rejected.add(row))) {
+            assertTrue(trades.isParallel());
+            assertEquals(expected, trades.toList());
+        }
+        int lastRecord = xmlData.lastIndexOf("<Trade>");
+        assertEquals(List.of("record at offset " + lastRecord + ": missing field"), rejected);
+    }
+
+    @Test
+    void testImportData_CommentedOutTradeAtChunkBoundary_IsNotCutAt() {
+        StringBuilder xmlData = new StringBuilder("<Trades>\n");
+        List<Trade> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            if (xmlData.length() > XmlStreamSpliterator.CHUNK_BYTES - 200 && xmlData.length() < XmlStreamSpliterator.CHUNK_BYTES) {
+                // The last <Trade before the end of the first chunk is commented out
+                xmlData.append("  <!-- <Trade> old row removed </Trade>").append(" ".repeat(300)).append("-->\n");
+                xmlData.append("  <![CDATA[ <Trade> ]]>\n");
+            }
+            xmlData.append("  <Trade><date>20250226</date><productId>").append(i)
+                    .append("</productId><currency>USD</currency><price>1.0</price></Trade>\n");
+            expected.add(Trade.of("20250226", String.valueOf(i), "USD", "1.0"));
+        }
+        xmlData.append("</Trades>\n");
+        List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+
+        try (Stream<Trade> trades = xmlTradeImporter.importData(
+                new ByteArrayInputStream(xmlData.toString().getBytes(StandardCharsets.UTF_8)), (issue, row) -> rejected.add(row))) {
+            assertEquals(expected, trades.toList());
+        }
+        assertEquals(List.of(), rejected);
+    }
+
+    @Test
+    void testImportData_DocumentWithDtd_IsReadAsAWhole() {
+        String xmlData = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><!DOCTYPE Trades>"
+                + "<Trades><Trade><date>2025-02-26</date><productId>123</productId><currency>USD</currency><price>10.5</price></Trade></Trades>";
+        InputStream inputStream = new ByteArrayInputStream(xmlData.getBytes(StandardCharsets.ISO_8859_1));
+
+        Stream<Trade> trades = xmlTradeImporter.importData(inputStream);
+
+        assertFalse(trades.isParallel());
+        assertEquals(List.of(Trade.of("2025-02-26", "123", "USD", "10.5")), trades.toList());
+    }
+
+    @Test
+    void testImportData_TruncatedXml_ThrowsException() {
+        String xmlData = "<Trades>"
+                + "<Trade><date>2025-02-26</date><productId>123</productId><currency>USD</currency><price>10.5</price></Trade>";
+        InputStream inputStream = new ByteArrayInputStream(xmlData.getBytes());
+
+        assertThrows(RuntimeException.class, () -> xmlTradeImporter.importData(inputStream).toList());
+    }
+
     @Test
     void testGetType_ReturnsCorrectType() {
         assertEquals("application/xml", xmlTradeImporter.getType());
@@ -0,0 +1,48 @@
+package org.peter.processor.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeTest {
+
+    @Test
+    void testOf_NumericProductId_IsKeptAsPrimitive() {
+        Trade trade = Trade.of("20230101", "123", "USD", "10.5");
+
+        assertTrue(trade.hasNumericProductId());
+        assertEquals(123, trade.getProductId());
+        assertNull(trade.getProductIdText());
+        assertEquals("123", trade.getProductKey());
+    }
+
+    @Test
+    void testOf_NonNumericProductId_KeepsOriginalText() {
+        Trade trade = Trade.of("20230101", "ABC-1", "USD", "10.5");
+
+        assertFalse(trade.hasNumericProductId());
+        assertEquals("ABC-1", trade.getProductKey());
+    }
+
+    @Test
+    void testOf_LeadingZeroProductId_KeepsOriginalText() {
+        Trade trade = Trade.of("20230101", "007", "USD", "10.5");
+
+        assertFalse(trade.hasNumericProductId());
+        assertEquals("007", trade.getProductKey());
+    }
+
+    @Test
+    void testOf_MissingProductId_UsesEmptyKey() {
+        Trade trade = Trade.of("20230101", null, "USD", "10.5");
+
+        assertFalse(trade.hasNumericProductId());
+        assertEquals("", trade.getProductKey());
+    }
+
+    @Test
+    void testOf_ParsedProductId_EqualsTextualForm() {
+        assertEquals(Trade.of("20230101", "123", "USD", "10.5"), Trade.of("20230101", 123, "USD", "10.5"));
+        assertThrows(IllegalArgumentException.class, () -> Trade.of("20230101", Trade.NON_NUMERIC_ID, "USD", "10.5"));
+    }
+}
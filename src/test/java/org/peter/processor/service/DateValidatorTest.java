@@ -0,0 +1,49 @@
+package org.peter.processor.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class DateValidatorTest {
+
+    private static final List<String> SAMPLES = List.of(
+            "20240101", "20241231", "20240229", "20230229", "20240231", "20240431", "20240132", "20241301",
+            "20240001", "20240100", "00000101", "00010101", "99991231", "2024010", "202401011", "2024-01-01",
+            "2024/01/01", "01-01-2024", "01/01/2024", "2024-1-01", "abcdefgh", "2024010a", " 20240101",
+            "", "invalid-date", "2024-02-30", "2024-13-01", "+2024-01-01", "12345-01-01", "01.01.2024");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"yyyyMMdd", "yyyy-MM-dd", "dd/MM/yyyy", "dd.MM.yyyy", "yyyy-M-d", "uuuuMMdd"})
+    void testIsValid_MatchesFormatter(String pattern) {
+        DateValidator dateValidator = new DateValidator(pattern);
+
+        for (int round = 0; round < 2; round++) { // Second round is served by the cache where applicable
+            for (String sample : SAMPLES) {
+                assertEquals(parsesWithFormatter(sample, pattern), dateValidator.isValid(sample),
+                        () -> sample + " with " + pattern);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"yyyyMMdd", "yyyy-MM-dd"})
+    void testIsValid_RejectsNull(String pattern) {
+        assertFalse(new DateValidator(pattern).isValid(null));
+    }
+
+    private static boolean parsesWithFormatter(String date, String pattern) {
+        try {
+            LocalDate.parse(date, DateTimeFormatter.ofPattern(pattern));
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
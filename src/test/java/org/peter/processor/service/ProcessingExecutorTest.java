@@ -0,0 +1,93 @@
+package org.peter.processor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.peter.processor.exception.ProcessingCapacityException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProcessingExecutor processingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        processingExecutor = new ProcessingExecutor(2, 4, 2, ExecutionMode.PLATFORM, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processingExecutor.shutdown();
+    }
+
+    @Test
+    void testAdmit_RejectsJobsBeyondLimitUntilReleased() {
+        ProcessingExecutor.Permit first = processingExecutor.admit();
+        ProcessingExecutor.Permit second = processingExecutor.admit();
+
+        assertThrows(ProcessingCapacityException.class, processingExecutor::admit);
+        assertEquals(2.0, meterRegistry.get("processing.jobs.active").gauge().value());
+
+        first.close();
+        assertDoesNotThrow(() -> processingExecutor.admit().close());
+        second.close();
+        assertEquals(0.0, meterRegistry.get("processing.jobs.active").gauge().value());
+    }
+
+    @Test
+    void testExecutor_RunsTasksAndPublishesMetrics() {
+        String threadName = CompletableFuture
+                .supplyAsync(() -> Thread.currentThread().getName(), processingExecutor.executor())
+                .join();
+
+        assertTrue(threadName.startsWith("processing-"));
+        assertNotNull(meterRegistry.find("executor.queued").tag("name", "processing").gauge());
+    }
+
+    @Test
+    void testExecutor_VirtualModePublishesJobAndTaskGauges() {
+        SimpleMeterRegistry virtualRegistry = new SimpleMeterRegistry();
+        ProcessingExecutor virtualExecutor = new ProcessingExecutor(2, 4, 2, ExecutionMode.VIRTUAL, virtualRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ProcessingExecutor.Permit ignored = virtualExecutor.admit()) {
+            CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, virtualExecutor.executor());
+
+            assertEquals(1.0, virtualRegistry.get("processing.jobs.active").gauge().value());
+            assertEquals(1.0, virtualRegistry.get("processing.tasks.in-flight").gauge().value());
+
+            release.countDown();
+            task.join();
+            virtualExecutor.shutdown(); // Waits for the task to count itself out
+            assertEquals(0.0, virtualRegistry.get("processing.tasks.in-flight").gauge().value());
+        } finally {
+            virtualExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void testExecutor_VirtualModeRunsTasksOnVirtualThreads() {
+        ProcessingExecutor virtualExecutor = new ProcessingExecutor(2, 4, 2, ExecutionMode.VIRTUAL, meterRegistry);
+        try {
+            boolean virtual = CompletableFuture
+                    .supplyAsync(() -> Thread.currentThread().isVirtual(), virtualExecutor.executor())
+                    .join();
+
+            assertTrue(virtual);
+        } finally {
+            virtualExecutor.shutdown();
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package org.peter.processor.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.peter.processor.service.catalog.CatalogHealthIndicator;
+import org.peter.processor.service.catalog.ProductCatalogReloadedEvent;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -21,6 +38,23 @@ class ProductsLoaderTest {
     @Mock
     private StringRedisTemplate redisTemplate;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private RedisCallLimiter redisCallLimiter = new RedisCallLimiter(4);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private TradeMetrics tradeMetrics = new TradeMetrics(meterRegistry);
+
+    @Spy
+    private CatalogHealthIndicator catalogHealth = new CatalogHealthIndicator();
+
+    @Mock
+    private ProductsSync productsSync;
+
     @InjectMocks
     private ProductsLoader productsLoader;
 
@@ -28,7 +62,11 @@ class ProductsLoaderTest {
     void setUp() {
         ReflectionTestUtils.setField(productsLoader, "batchSize", 2);
         ReflectionTestUtils.setField(productsLoader, "threadCount", 1);
-        ReflectionTestUtils.setField(productsLoader, "productsFile", "test-products.csv");
+        ReflectionTestUtils.setField(productsLoader, "productsFile", new ClassPathResource("test-products.csv"));
+        ReflectionTestUtils.setField(productsLoader, "executionMode", ExecutionMode.PLATFORM);
+        ReflectionTestUtils.setField(productsLoader, "loadMode", CatalogLoadMode.BLOCKING);
+        ReflectionTestUtils.setField(productsLoader, "maxInFlightBlocks", 2);
+        ReflectionTestUtils.setField(productsLoader, "syncMode", CatalogSyncMode.FULL);
     }
 
     @Test
@@ -39,6 +77,39 @@ class ProductsLoaderTest {
         productsLoader.loadProductsIntoRedis();
 
         verify(redisTemplate, atLeastOnce()).executePipelined(any(RedisCallback.class));
+        verify(eventPublisher).publishEvent(any(ProductCatalogReloadedEvent.class));
+        assertEquals(1, meterRegistry.get("products.load").timer().count());
+        assertEquals(Status.UP, catalogHealth.health().getStatus());
+        assertEquals(2, catalogHealth.health().getDetails().get("productsLoaded"));
+    }
+
+    @Test
+    void shouldLoadLargeFileInBlocks() {
+        ReflectionTestUtils.setField(productsLoader, "batchSize", 1000);
+        ReflectionTestUtils.setField(productsLoader, "threadCount", 4);
+        ReflectionTestUtils.setField(productsLoader, "productsFile", new ClassPathResource("products.csv"));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Collections.emptyList());
+
+        productsLoader.loadProductsIntoRedis();
+
+        assertEquals(79_991, meterRegistry.get("products.loaded").counter().count());
+        assertEquals(79_991, catalogHealth.health().getDetails().get("productsLoaded"));
+    }
+
+    @Test
+    void shouldLoadInBackgroundAndReportReadiness() {
+        ReflectionTestUtils.setField(productsLoader, "loadMode", CatalogLoadMode.BACKGROUND);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Collections.emptyList());
+
+        productsLoader.start();
+
+        verify(eventPublisher, timeout(5000)).publishEvent(any(ProductCatalogReloadedEvent.class));
+        assertEquals(Status.UP, catalogHealth.health().getStatus());
+    }
+
+    @Test
+    void shouldReportOutOfServiceWhileLoading() {
+        assertEquals(Status.OUT_OF_SERVICE, catalogHealth.health().getStatus());
     }
 
     @Test
@@ -51,10 +122,73 @@ class ProductsLoaderTest {
         verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
     }
 
+    @Test
+    void shouldLoadProductsOnVirtualThreads() {
+        ReflectionTestUtils.setField(productsLoader, "executionMode", ExecutionMode.VIRTUAL);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Collections.emptyList());
+
+        productsLoader.loadProductsIntoRedis();
+
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(redisCallLimiter, times(1)).call(any());
+    }
+
+    @Test
+    void shouldSyncIncrementallyAndInvalidateOnChanges() {
+        ReflectionTestUtils.setField(productsLoader, "syncMode", CatalogSyncMode.INCREMENTAL);
+        when(productsSync.sync(any())).thenReturn(new ProductSyncResult(2, 1, 1, 0, 5));
+
+        productsLoader.start();
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        verify(eventPublisher).publishEvent(any(ProductCatalogReloadedEvent.class));
+        assertEquals(1, meterRegistry.get("products.sync.written").counter().count());
+        assertEquals(Status.UP, catalogHealth.health().getStatus());
+    }
+
+    @Test
+    void shouldSyncTheCurrentContentOfTheFile(@TempDir Path tempDir) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("products.csv"), "productId,productName\n1,Product A\n");
+        ReflectionTestUtils.setField(productsLoader, "productsFile", new FileSystemResource(file));
+        List<String> synced = new ArrayList<>();
+        when(productsSync.sync(any())).thenAnswer(invocation -> {
+            synced.add(new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8));
+            return new ProductSyncResult(1, 1, 1, 0, 1);
+        });
+
+        productsLoader.syncProductsIntoRedis();
+        Files.writeString(file, "productId,productName\n1,Product A2\n2,Product B\n");
+        productsLoader.syncProductsIntoRedis();
+
+        assertEquals(List.of("productId,productName\n1,Product A\n", "productId,productName\n1,Product A2\n2,Product B\n"),
+                synced);
+    }
+
+    @Test
+    void shouldKeepCacheWhenSyncFindsNoChanges() {
+        when(productsSync.sync(any())).thenReturn(new ProductSyncResult(2, 0, 0, 0, 1));
+
+        productsLoader.syncProductsIntoRedis();
+
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldStayUpWhenReloadFails() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Collections.emptyList());
+        productsLoader.loadProductsIntoRedis();
+        when(productsSync.sync(any())).thenThrow(new IllegalStateException("Redis is gone"));
+
+        assertThrows(RuntimeException.class, productsLoader::syncProductsIntoRedis);
+        assertEquals(Status.UP, catalogHealth.health().getStatus());
+        assertEquals("Redis is gone", catalogHealth.health().getDetails().get("lastReloadError"));
+    }
+
     @Test
     void shouldHandleIOException() {
-        ReflectionTestUtils.setField(productsLoader, "productsFile", "non-existent-file.csv");
+        ReflectionTestUtils.setField(productsLoader, "productsFile", new ClassPathResource("non-existent-file.csv"));
 
         assertThrows(RuntimeException.class, productsLoader::loadProductsIntoRedis);
+        assertEquals(Status.DOWN, catalogHealth.health().getStatus());
     }
 }
@@ -0,0 +1,191 @@
+package org.peter.processor.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisSetCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the sync against an in-memory stand-in for the Redis keys it uses.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ProductsSyncTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    @Mock
+    private RedisSetCommands setCommands;
+
+    @Mock
+    private RedisHashCommands hashCommands;
+
+    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, Set<String>> sets = new HashMap<>();
+    private final Map<Object, Object> fingerprints = new HashMap<>();
+    private final List<Object> pipelineResults = new ArrayList<>();
+
+    private ProductsSync productsSync;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(ProductsSync.FINGERPRINTS_KEY)).thenAnswer(invocation -> new HashMap<>(fingerprints));
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(connection.setCommands()).thenReturn(setCommands);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        // Like a pipeline: commands return null and their results come back from executePipelined
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            pipelineResults.clear();
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return new ArrayList<>(pipelineResults);
+        });
+
+        doAnswer(invocation -> {
+            pipelineResults.add(new HashSet<>(sets.getOrDefault(text(invocation.getArgument(0)), Set.of())));
+            return null;
+        }).when(setCommands).sMembers(any(byte[].class));
+        doAnswer(invocation -> {
+            pipelineResults.add(texts(invocation.getArguments(), 0).stream().map(values::get).toList());
+            return null;
+        }).when(stringCommands).mGet(any(byte[][].class));
+        doAnswer(invocation -> {
+            values.put(text(invocation.getArgument(0)), text(invocation.getArgument(1)));
+            return null;
+        }).when(stringCommands).set(any(byte[].class), any(byte[].class));
+        doAnswer(invocation -> {
+            for (String key : texts(invocation.getArguments(), 0)) {
+                values.remove(key);
+                sets.remove(key);
+            }
+            return null;
+        }).when(keyCommands).del(any(byte[][].class));
+        doAnswer(invocation -> {
+            sets.computeIfAbsent(text(invocation.getArgument(0)), key -> new HashSet<>())
+                    .addAll(texts(invocation.getArguments(), 1));
+            return null;
+        }).when(setCommands).sAdd(any(byte[].class), any(byte[][].class));
+        doAnswer(invocation -> {
+            fingerprints.put(text(invocation.getArgument(1)), text(invocation.getArgument(2)));
+            return null;
+        }).when(hashCommands).hSet(any(byte[].class), any(byte[].class), any(byte[].class));
+
+        productsSync = new ProductsSync(redisTemplate, new RedisCallLimiter(4));
+    }
+
+    @Test
+    void shouldWriteAllProductsOnFirstSync() {
+        ProductSyncResult result = productsSync.sync(products("1,Product A\n2,Product B\nINVALID_LINE\n"));
+
+        assertEquals(2, result.products());
+        assertEquals(ProductsSync.BUCKETS, result.changedBuckets());
+        assertEquals(2, result.written());
+        assertEquals(0, result.deleted());
+        assertEquals(Map.of("1", "Product A", "2", "Product B"), values);
+        assertEquals(ProductsSync.BUCKETS, fingerprints.size());
+        // One pipeline reading and one writing per group of buckets
+        verify(redisTemplate, times(2 * ProductsSync.BUCKETS / ProductsSync.BUCKETS_PER_PIPELINE))
+                .executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void shouldSkipUnchangedBuckets() {
+        productsSync.sync(products("1,Product A\n2,Product B\n"));
+        clearInvocations(redisTemplate);
+
+        ProductSyncResult result = productsSync.sync(products("2,Product B\n1,Product A\n"));
+
+        assertEquals(0, result.changedBuckets());
+        assertEquals(0, result.written());
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void shouldWriteChangedAndDeleteRemovedProducts() {
+        productsSync.sync(products("1,Product A\n2,Product B\n3,Product C\n"));
+
+        ProductSyncResult result = productsSync.sync(products("1,Product A2\n2,Product B\n4,Product D\n"));
+
+        assertEquals(2, result.written());
+        assertEquals(1, result.deleted());
+        assertEquals(Map.of("1", "Product A2", "2", "Product B", "4", "Product D"), values);
+        assertEquals(Set.of("4"), sets.get(ProductsSync.IDS_KEY_PREFIX + ProductsSync.bucketOf("4")));
+    }
+
+    @Test
+    void shouldOnlyWriteNamesThatDifferFromRedis() {
+        values.put("1", "Product A"); // Written by a full load before the first sync
+
+        ProductSyncResult result = productsSync.sync(products("1,Product A\n2,Product B\n"));
+
+        assertEquals(1, result.written());
+        verify(stringCommands, never()).set("1".getBytes(StandardCharsets.UTF_8), "Product A".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldFingerprintContentRegardlessOfOrder() {
+        assertEquals(ProductsSync.fingerprint(Map.of("1", "A", "2", "B")),
+                ProductsSync.fingerprint(new HashMap<>(Map.of("2", "B", "1", "A"))));
+        assertNotEquals(ProductsSync.fingerprint(Map.of("1", "A")), ProductsSync.fingerprint(Map.of("1", "B")));
+        assertNotEquals(ProductsSync.fingerprint(Map.of("1", "2x")), ProductsSync.fingerprint(Map.of("12", "x")));
+    }
+
+    private static ByteArrayInputStream products(String lines) {
+        return new ByteArrayInputStream(("id,name\n" + lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the byte array arguments from the given index on, whether the varargs are expanded or not.
+     */
+    private static List<String> texts(Object[] arguments, int from) {
+        return Arrays.stream(arguments, from, arguments.length)
+                .flatMap(argument -> argument instanceof byte[][] array ? Arrays.stream(array) : Stream.of((byte[]) argument))
+                .map(ProductsSyncTest::text)
+                .toList();
+    }
+}
@@ -0,0 +1,64 @@
+package org.peter.processor.service;
+
+import org.junit.jupiter.api.Test;
+import org.peter.processor.io.importer.RowIssue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RejectionReportTest {
+
+    @Test
+    void testOnIssue_CountsEveryIssueButKeepsOnlyFirstSamples() {
+        RejectionReport report = new RejectionReport(2);
+
+        report.onIssue(RowIssue.INVALID_DATE, "2024-13-01");
+        report.onIssue(RowIssue.INVALID_DATE, "bad-date");
+        report.onIssue(RowIssue.INVALID_DATE, "2024/01/01");
+        report.onIssue(RowIssue.MISSING_PRODUCT, "42");
+
+        assertEquals(3, report.count(RowIssue.INVALID_DATE));
+        assertEquals(List.of("2024-13-01", "bad-date"), report.samples(RowIssue.INVALID_DATE));
+        assertEquals(0, report.count(RowIssue.MALFORMED_ROW));
+        assertEquals(3, report.rejectedRows());
+        assertFalse(report.isEmpty());
+    }
+
+    @Test
+    void testOnIssue_ConcurrentCallsAreAllCounted() {
+        RejectionReport report = new RejectionReport(5);
+
+        IntStream.range(0, 100_000).parallel()
+                .forEach(i -> report.onIssue(RowIssue.MALFORMED_ROW, "row " + i));
+
+        assertEquals(100_000, report.count(RowIssue.MALFORMED_ROW));
+        assertEquals(5, report.samples(RowIssue.MALFORMED_ROW).size());
+    }
+
+    @Test
+    void testToTrailerFields_SummarizesReport() {
+        RejectionReport report = new RejectionReport(5);
+        report.onIssue(RowIssue.MALFORMED_ROW, "a,\"b\"\r\nc");
+        report.onIssue(RowIssue.INVALID_DATE, "2024-13-01");
+        report.onIssue(RowIssue.MISSING_PRODUCT, "42");
+
+        Map<String, String> trailers = report.toTrailerFields();
+
+        assertEquals("2", trailers.get(RejectionReport.ROWS_REJECTED_TRAILER));
+        assertEquals("malformed_row=1, invalid_date=1", trailers.get(RejectionReport.REJECTIONS_TRAILER));
+        assertEquals("1", trailers.get(RejectionReport.PRODUCTS_MISSING_TRAILER));
+        assertEquals("malformed_row=\"a,?b???c\"; invalid_date=\"2024-13-01\"; missing_product=\"42\"",
+                trailers.get(RejectionReport.SAMPLES_TRAILER));
+    }
+
+    @Test
+    void testIsEmpty_NoIssues() {
+        RejectionReport report = new RejectionReport(5);
+
+        assertTrue(report.isEmpty());
+        assertEquals("0", report.toTrailerFields().get(RejectionReport.ROWS_REJECTED_TRAILER));
+    }
+}
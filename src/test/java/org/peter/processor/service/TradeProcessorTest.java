@@ -6,9 +6,17 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.peter.processor.exception.ExportFormatUnavailableException;
+import org.peter.processor.exception.ProcessingCapacityException;
+import org.peter.processor.exception.UnsupportedFormatException;
 import org.peter.processor.io.ProcessType;
+import org.peter.processor.io.exporter.ExportSession;
 import org.peter.processor.io.exporter.TradeExporter;
+import org.peter.processor.io.importer.RowIssue;
 import org.peter.processor.io.importer.TradeImporter;
+import org.peter.processor.model.Trade;
+import org.peter.processor.service.catalog.RedisProductCatalog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -21,14 +29,17 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.data.redis.core.ValueOperations;
 
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -38,6 +49,10 @@ class TradeProcessorTest {
 
     private TradeProcessor tradeProcessor;
 
+    private ProcessingExecutor processingExecutor;
+
+    private SimpleMeterRegistry meterRegistry;
+
     @Mock
     private StringRedisTemplate redisTemplate;
 
@@ -47,12 +62,15 @@ class TradeProcessorTest {
     @Mock
     private TradeExporter mockExporter;
 
+    @Mock
+    private ExportSession mockSession;
+
     @Mock
     private TradeImporter mockImporter;
 
     private static MockedStatic<ProcessType> mockedProcessType;
 
-    private static final String CSV_TYPE = "csv";
+    private static final String CSV_TYPE = ProcessType.CSV.getType();
     private static final String CSV_MIME_TYPE = "text/csv";
 
     @BeforeAll
@@ -66,101 +84,321 @@ class TradeProcessorTest {
     }
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         when(mockExporter.getType()).thenReturn(CSV_TYPE);
         when(mockImporter.getType()).thenReturn(CSV_TYPE);
 
+        TradeEnricher tradeEnricher = new TradeEnricher(new DateValidator("yyyy-MM-dd"));
+
+        meterRegistry = new SimpleMeterRegistry();
+        TradeMetrics tradeMetrics = new TradeMetrics(meterRegistry);
+        processingExecutor = new ProcessingExecutor(1, 10, 1, ExecutionMode.PLATFORM, meterRegistry);
         tradeProcessor = new TradeProcessor(
-                redisTemplate,
+                new RedisProductCatalog(redisTemplate, new RedisCallLimiter(4), tradeMetrics),
+                tradeEnricher,
+                processingExecutor,
+                tradeMetrics,
                 List.of(mockExporter),
                 List.of(mockImporter)
         );
 
         ReflectionTestUtils.setField(tradeProcessor, "batchSize", 2);
-        ReflectionTestUtils.setField(tradeProcessor, "threadCount", 1);
-        ReflectionTestUtils.setField(tradeProcessor, "dateFormat", "yyyy-MM-dd");
+        ReflectionTestUtils.setField(tradeProcessor, "maxInFlightBatches", 2);
 
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(mockExporter.begin(any())).thenReturn(mockSession);
 
-        ProcessType mockProcessType = mock(ProcessType.class);
-        when(mockProcessType.getType()).thenReturn(CSV_TYPE);
-        mockedProcessType.when(() -> ProcessType.fromMimeType(CSV_MIME_TYPE)).thenReturn(mockProcessType);
+        mockedProcessType.when(() -> ProcessType.fromMimeType(CSV_MIME_TYPE)).thenReturn(ProcessType.CSV);
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        processingExecutor.shutdown();
     }
 
     @Test
     void testProcessTrades_SuccessfulProcessing() throws IOException {
         InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
-        StringWriter stringWriter = new StringWriter();
-        BufferedWriter writer = new BufferedWriter(stringWriter);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-        Stream<Map<String, String>> mockTradeStream = Stream.of(
-                Map.of("productId", "1", "date", "2024-01-01", "currency", "USD", "price", "100")
+        Stream<Trade> mockTradeStream = Stream.of(
+                Trade.of("2024-01-01", "1", "USD", "100")
         );
 
-        when(mockImporter.importData(any())).thenReturn(mockTradeStream);
+        when(mockImporter.importData(any(InputStream.class), any())).thenReturn(mockTradeStream);
         when(valueOperations.multiGet(anyList())).thenReturn(
                 Collections.singletonList("Product A")
         );
-        doNothing().when(mockExporter).writeTrades(any(), anyList());
-
-        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, writer));
+        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, output, new RejectionReport(5)));
 
-        verify(mockImporter, times(1)).importData(any());
+        verify(mockImporter, times(1)).importData(any(InputStream.class), any());
         verify(valueOperations, times(1)).multiGet(anyList());
-        verify(mockExporter, times(1)).writeTrades(any(), anyList());
+        verify(mockSession, times(1)).writeBatch(anyList());
+        verify(mockSession, times(1)).end();
     }
 
     @Test
     void testProcessTrades_InvalidDateSkipped() throws IOException {
         InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
-        StringWriter stringWriter = new StringWriter();
-        BufferedWriter writer = new BufferedWriter(stringWriter);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-        Stream<Map<String, String>> mockTradeStream = Stream.of(
-                Map.of("productId", "1", "date", "invalid-date", "currency", "USD", "price", "100")
+        Stream<Trade> mockTradeStream = Stream.of(
+                Trade.of("invalid-date", "1", "USD", "100")
         );
 
-        when(mockImporter.importData(any())).thenReturn(mockTradeStream);
+        when(mockImporter.importData(any(InputStream.class), any())).thenReturn(mockTradeStream);
         when(valueOperations.multiGet(anyList())).thenReturn(
                 Collections.singletonList("Product A")
         );
 
         doAnswer(invocation -> {
-            List<Map<String, String>> trades = invocation.getArgument(1);
+            List<Trade> trades = invocation.getArgument(0);
             assertEquals(0, trades.size());
             return null;
-        }).when(mockExporter).writeTrades(any(), anyList());
+        }).when(mockSession).writeBatch(anyList());
 
-        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, writer));
+        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, output, new RejectionReport(5)));
 
-        verify(mockImporter, times(1)).importData(any());
+        verify(mockImporter, times(1)).importData(any(InputStream.class), any());
         verify(valueOperations, times(1)).multiGet(anyList());
-        verify(mockExporter, times(1)).writeTrades(any(), anyList());
+        verify(mockSession, times(1)).writeBatch(anyList());
     }
 
     @Test
     void testProcessTrades_MultipleBatches() throws IOException {
         InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
-        StringWriter stringWriter = new StringWriter();
-        BufferedWriter writer = new BufferedWriter(stringWriter);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-        Stream<Map<String, String>> mockTradeStream = Stream.of(
-                Map.of("productId", "1", "date", "2024-01-01", "currency", "USD", "price", "100"),
-                Map.of("productId", "2", "date", "2024-01-02", "currency", "EUR", "price", "200"),
-                Map.of("productId", "3", "date", "2024-01-03", "currency", "GBP", "price", "300")
+        Stream<Trade> mockTradeStream = Stream.of(
+                Trade.of("2024-01-01", "1", "USD", "100"),
+                Trade.of("2024-01-02", "2", "EUR", "200"),
+                Trade.of("2024-01-03", "3", "GBP", "300")
         );
 
-        when(mockImporter.importData(any())).thenReturn(mockTradeStream);
+        when(mockImporter.importData(any(InputStream.class), any())).thenReturn(mockTradeStream);
         when(valueOperations.multiGet(anyList())).thenReturn(
                 List.of("Product A", "Product B"),
                 List.of("Product C")
         );
 
-        doNothing().when(mockExporter).writeTrades(any(), anyList());
-        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, writer));
+        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, output, new RejectionReport(5)));
+
+        verify(mockImporter, times(1)).importData(any(InputStream.class), any());
+        verify(valueOperations, times(2)).multiGet(anyList());
+        verify(mockExporter, times(1)).begin(any());
+        verify(mockSession, times(2)).writeBatch(anyList());
+        verify(mockSession, times(1)).end();
+    }
+
+    @Test
+    void testProcessTrades_StreamsTradesInInputOrder() throws IOException {
+        InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Stream<Trade> mockTradeStream = Stream.of(
+                Trade.of("2024-01-01", "1", "USD", "100"),
+                Trade.of("2024-01-02", "2", "EUR", "200"),
+                Trade.of("2024-01-03", "3", "GBP", "300"),
+                Trade.of("2024-01-04", "4", "CHF", "400"),
+                Trade.of("2024-01-05", "5", "JPY", "500")
+        );
+
+        when(mockImporter.importData(any(InputStream.class), any())).thenReturn(mockTradeStream);
+        when(valueOperations.multiGet(anyList())).thenReturn(
+                List.of("Product A", "Product B"),
+                List.of("Product C", "Product D"),
+                List.of("Product E")
+        );
+
+        List<String> exportedNames = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Trade> trades = invocation.getArgument(0);
+            trades.forEach(trade -> exportedNames.add(trade.getProductName()));
+            return null;
+        }).when(mockSession).writeBatch(anyList());
+
+        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, output, new RejectionReport(5)));
+
+        assertEquals(List.of("Product A", "Product B", "Product C", "Product D", "Product E"), exportedNames);
+        verify(valueOperations, times(3)).multiGet(anyList());
+    }
+
+    @Test
+    void testProcessTrades_ParallelFileImportKeepsInputOrder() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        List<Trade> trades = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            trades.add(Trade.of("2024-01-01", String.valueOf(i), "USD", "100"));
+        }
+
+        when(mockImporter.importData(any(Path.class), any())).thenReturn(trades.stream().parallel());
+        when(valueOperations.multiGet(anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> "Product " + id).toList();
+        });
+
+        List<String> exportedNames = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Trade> batch = invocation.getArgument(0);
+            batch.forEach(trade -> exportedNames.add(trade.getProductName()));
+            return null;
+        }).when(mockSession).writeBatch(anyList());
+
+        assertDoesNotThrow(() -> tradeProcessor.processTrades(Path.of("trades.csv"), CSV_MIME_TYPE, CSV_MIME_TYPE, output, new RejectionReport(5)));
+
+        assertEquals(List.of("Product 0", "Product 1", "Product 2", "Product 3", "Product 4", "Product 5", "Product 6"),
+                exportedNames);
+        verify(mockImporter, never()).importData(any(InputStream.class), any());
+    }
+
+    @Test
+    void testProcessTrades_FailedExportCancelsPendingBatches() throws Exception {
+        InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Stream<Trade> mockTradeStream = Stream.of(
+                Trade.of("2024-01-01", "1", "USD", "100"),
+                Trade.of("2024-01-02", "2", "EUR", "200"),
+                Trade.of("2024-01-03", "3", "GBP", "300"),
+                Trade.of("2024-01-04", "4", "CHF", "400"),
+                Trade.of("2024-01-05", "5", "JPY", "500")
+        );
+
+        CountDownLatch secondBatchRunning = new CountDownLatch(1);
+        CountDownLatch requestFailed = new CountDownLatch(1);
+        when(mockImporter.importData(any(InputStream.class), any())).thenReturn(mockTradeStream);
+        when(valueOperations.multiGet(anyList())).thenReturn(List.of("Product A", "Product B")).thenAnswer(invocation -> {
+            secondBatchRunning.countDown();
+            requestFailed.await(); // Holds the only executor thread, so the third batch is still queued
+            return List.of("Product C", "Product D");
+        });
+        doAnswer(invocation -> {
+            secondBatchRunning.await();
+            throw new IOException("Client went away");
+        }).when(mockSession).writeBatch(anyList());
+
+        assertThrows(RuntimeException.class,
+                () -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, output, new RejectionReport(5)));
+        requestFailed.countDown();
+        processingExecutor.shutdown();
 
-        verify(mockImporter, times(1)).importData(any());
         verify(valueOperations, times(2)).multiGet(anyList());
-        verify(mockExporter, times(1)).writeTrades(any(), anyList());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testProcessTrades_RecordsStageMetrics() {
+        InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Stream<Trade> mockTradeStream = Stream.of(
+                Trade.of("2024-01-01", "1", "USD", "100"),
+                Trade.of("invalid-date", "2", "EUR", "200"),
+                Trade.of("2024-01-03", "3", "GBP", "300")
+        );
+
+        when(mockImporter.importData(any(InputStream.class), any())).thenReturn(mockTradeStream);
+        when(valueOperations.multiGet(anyList())).thenReturn(
+                List.of("Product A", "Product B"),
+                Collections.singletonList(null)
+        );
+
+        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, output, new RejectionReport(5)));
+
+        assertEquals(3, meterRegistry.get("trades.rows.parsed").tag("format", "csv").counter().count());
+        assertEquals(1, meterRegistry.get("trades.rows.rejected").tag("reason", "invalid_date").counter().count());
+        assertEquals(0, meterRegistry.get("trades.rows.rejected").tag("reason", "malformed_row").counter().count());
+        assertEquals(1, meterRegistry.get("trades.products.missing").counter().count());
+        assertEquals(2, meterRegistry.get("redis.multiget").timer().count());
+        assertEquals(3, meterRegistry.get("redis.multiget.keys").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("trades.export").tag("format", "csv").timer().count());
+        assertEquals(1, meterRegistry.get("trades.processing").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testProcessTrades_ReportsRejectedRowsWithSamples() {
+        InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RejectionReport report = new RejectionReport(1);
+
+        Stream<Trade> mockTradeStream = Stream.of(
+                Trade.of("invalid-date", "1", "USD", "100"),
+                Trade.of("2024-13-01", "2", "EUR", "200"),
+                Trade.of("2024-01-03", "3", "GBP", "300")
+        );
+
+        when(mockImporter.importData(any(InputStream.class), any())).thenReturn(mockTradeStream);
+        when(valueOperations.multiGet(anyList())).thenReturn(
+                List.of("Product A", "Product B"),
+                Collections.singletonList(null)
+        );
+
+        assertDoesNotThrow(() -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, output, report));
+
+        assertEquals(2, report.count(RowIssue.INVALID_DATE));
+        assertEquals(List.of("invalid-date"), report.samples(RowIssue.INVALID_DATE));
+        assertEquals(List.of("3"), report.samples(RowIssue.MISSING_PRODUCT));
+        assertEquals(2, report.rejectedRows());
+    }
+
+    @Test
+    void testProcessTrades_RejectedWhenCapacityExhausted() {
+        InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ProcessingExecutor.Permit ignored = processingExecutor.admit()) {
+            assertThrows(ProcessingCapacityException.class,
+                    () -> tradeProcessor.processTrades(inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, output, new RejectionReport(5)));
+        }
+
+        verify(mockImporter, never()).importData(any(InputStream.class), any());
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void testProcessTrades_FileWaitsForCapacity() throws Exception {
+        when(mockImporter.importData(any(Path.class), any())).thenReturn(Stream.of(Trade.of("2024-01-01", "1", "USD", "100")));
+        when(valueOperations.multiGet(anyList())).thenReturn(List.of("Product A"));
+        RejectionReport report = new RejectionReport(5);
+
+        CompletableFuture<Void> job;
+        try (ProcessingExecutor.Permit ignored = processingExecutor.admit()) {
+            job = CompletableFuture.runAsync(() -> {
+                try {
+                    tradeProcessor.processTrades(Path.of("trades.csv"), CSV_MIME_TYPE, CSV_MIME_TYPE, new ByteArrayOutputStream(), report);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(job.isDone());
+        }
+
+        job.get(5, TimeUnit.SECONDS);
+        assertEquals(1, report.rowsWritten());
+    }
+
+    @Test
+    void testProcessTrades_UnavailableOutputFormat_IsRejectedBeforeReading() {
+        doThrow(new ExportFormatUnavailableException("Arrow output needs a JVM option", null)).when(mockExporter).checkAvailable();
+        InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
+
+        assertThrows(ExportFormatUnavailableException.class, () -> tradeProcessor.processTrades(
+                inputStream, CSV_MIME_TYPE, CSV_MIME_TYPE, new ByteArrayOutputStream(), new RejectionReport(5)));
+
+        verify(mockImporter, never()).importData(any(InputStream.class), any());
+        assertDoesNotThrow(() -> processingExecutor.admit().close());
+    }
+
+    @Test
+    void testProcessTrades_InputFormatWithoutImporter_IsRejected() {
+        String arrowType = ProcessType.ARROW.getType();
+        mockedProcessType.when(() -> ProcessType.fromMimeType(arrowType)).thenReturn(ProcessType.ARROW);
+        InputStream inputStream = new ByteArrayInputStream("dummy data".getBytes());
+
+        assertThrows(UnsupportedFormatException.class, () -> tradeProcessor.processTrades(
+                inputStream, arrowType, CSV_MIME_TYPE, new ByteArrayOutputStream(), new RejectionReport(5)));
+
+        verify(mockImporter, never()).importData(any(InputStream.class), any());
+    }
+}
@@ -0,0 +1,80 @@
+package org.peter.processor.service.catalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.peter.processor.model.Trade;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingProductCatalogTest {
+
+    @Mock
+    private RedisProductCatalog redisCatalog;
+
+    private CachingProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new CachingProductCatalog(redisCatalog, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testFindProductNames_SecondLookupIsServedFromCache() {
+        when(redisCatalog.findProductNamesByIds(List.of("1"))).thenReturn(List.of("Product A"));
+
+        List<Trade> trades = List.of(Trade.of("20230101", "1", "USD", "10.5"));
+
+        assertEquals(List.of("Product A"), catalog.findProductNames(trades));
+        assertEquals(List.of("Product A"), catalog.findProductNames(trades));
+
+        verify(redisCatalog, times(1)).findProductNamesByIds(anyList());
+    }
+
+    @Test
+    void testFindProductNames_UnknownProductIsCachedAsMissing() {
+        when(redisCatalog.findProductNamesByIds(List.of("99"))).thenReturn(Arrays.asList((String) null));
+
+        List<Trade> trades = List.of(Trade.of("20230101", "99", "USD", "10.5"));
+
+        assertEquals(Arrays.asList((String) null), catalog.findProductNames(trades));
+        assertEquals(Arrays.asList((String) null), catalog.findProductNames(trades));
+
+        verify(redisCatalog, times(1)).findProductNamesByIds(anyList());
+    }
+
+    @Test
+    void testInvalidate_ReloadsFromRedis() {
+        when(redisCatalog.findProductNamesByIds(List.of("1"))).thenReturn(List.of("Product A"), List.of("Product A v2"));
+
+        List<Trade> trades = List.of(Trade.of("20230101", "1", "USD", "10.5"));
+
+        assertEquals(List.of("Product A"), catalog.findProductNames(trades));
+        catalog.invalidate();
+        assertEquals(List.of("Product A v2"), catalog.findProductNames(trades));
+    }
+
+    @Test
+    void testBindTo_PublishesHitAndMissCounters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        catalog.bindTo(registry);
+        when(redisCatalog.findProductNamesByIds(List.of("1"))).thenReturn(List.of("Product A"));
+
+        List<Trade> trades = List.of(Trade.of("20230101", "1", "USD", "10.5"));
+        catalog.findProductNames(trades);
+        catalog.findProductNames(trades);
+
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "products", "result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "products", "result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,86 @@
+package org.peter.processor.service.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntProductDictionaryTest {
+
+    @Test
+    void testGet_ReturnsNamesForKnownIds() {
+        IntProductDictionary dictionary = IntProductDictionary.builder()
+                .put(1, "Commodity Swaps")
+                .put(2, "FX Forward")
+                .put(0, "Zero")
+                .build();
+
+        assertEquals(3, dictionary.size());
+        assertEquals("Commodity Swaps", dictionary.get(1));
+        assertEquals("FX Forward", dictionary.get(2));
+        assertEquals("Zero", dictionary.get(0));
+    }
+
+    @Test
+    void testGet_RepeatedHitsReturnTheSameInstance() {
+        IntProductDictionary dictionary = IntProductDictionary.builder().put(1, "Commodity Swaps").build();
+
+        assertSame(dictionary.get(1), dictionary.get(1));
+    }
+
+    @Test
+    void testGet_NamesEvictedFromTheCacheAreDecodedAgain() {
+        IntProductDictionary.Builder builder = IntProductDictionary.builder();
+        for (int id = 0; id < IntProductDictionary.CACHE_SIZE * 4; id++) {
+            builder.put(id, "Product " + id);
+        }
+        IntProductDictionary dictionary = builder.build();
+
+        for (int id = 0; id < IntProductDictionary.CACHE_SIZE * 4; id++) {
+            assertEquals("Product " + id, dictionary.get(id));
+        }
+        for (int id = 0; id < IntProductDictionary.CACHE_SIZE * 4; id += 7) {
+            assertEquals("Product " + id, dictionary.get(id));
+        }
+    }
+
+    @Test
+    void testGet_UnknownIdReturnsNull() {
+        IntProductDictionary dictionary = IntProductDictionary.builder().put(1, "Commodity Swaps").build();
+
+        assertNull(dictionary.get(2));
+        assertNull(dictionary.get(-1));
+        assertFalse(dictionary.contains(2));
+    }
+
+    @Test
+    void testBuild_LaterEntryReplacesEarlierOne() {
+        IntProductDictionary dictionary = IntProductDictionary.builder()
+                .put(7, "Old name")
+                .put(7, "New name")
+                .build();
+
+        assertEquals(1, dictionary.size());
+        assertEquals("New name", dictionary.get(7));
+    }
+
+    @Test
+    void testBuild_HandlesManyEntriesAndMultiByteNames() {
+        IntProductDictionary.Builder builder = IntProductDictionary.builder();
+        for (int id = 0; id < 100_000; id += 3) {
+            builder.put(id, "Prodüct " + id);
+        }
+        IntProductDictionary dictionary = builder.build();
+
+        assertEquals(33_334, dictionary.size());
+        assertEquals("Prodüct 99999", dictionary.get(99_999));
+        assertNull(dictionary.get(99_998));
+    }
+
+    @Test
+    void testBuild_EmptyDictionary() {
+        IntProductDictionary dictionary = IntProductDictionary.builder().build();
+
+        assertEquals(0, dictionary.size());
+        assertNull(dictionary.get(1));
+    }
+}
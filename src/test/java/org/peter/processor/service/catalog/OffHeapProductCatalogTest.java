@@ -0,0 +1,64 @@
+package org.peter.processor.service.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.peter.processor.model.Trade;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OffHeapProductCatalogTest {
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private CatalogHealthIndicator catalogHealth = new CatalogHealthIndicator();
+
+    @InjectMocks
+    private OffHeapProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalog, "productsFile", new ClassPathResource("test-products.csv"));
+    }
+
+    @Test
+    void testFindProductNames_ResolvesFromLoadedCatalogue() {
+        catalog.loadProducts();
+
+        List<Trade> trades = List.of(
+                Trade.of("20230101", "2", "USD", "10.5"),
+                Trade.of("20230101", "3", "USD", "10.5"),
+                Trade.of("20230101", "ABC", "USD", "10.5"),
+                Trade.of("20230101", "1", "USD", "10.5")
+        );
+
+        assertEquals(Arrays.asList("Product B", null, null, "Product A"), catalog.findProductNames(trades));
+        verify(eventPublisher).publishEvent(any(ProductCatalogReloadedEvent.class));
+        assertEquals(Status.UP, catalogHealth.health().getStatus());
+    }
+
+    @Test
+    void testLoadProducts_MissingFileThrows() {
+        ReflectionTestUtils.setField(catalog, "productsFile", new ClassPathResource("non-existent-file.csv"));
+
+        assertThrows(RuntimeException.class, catalog::loadProducts);
+        assertEquals(Status.DOWN, catalogHealth.health().getStatus());
+    }
+}
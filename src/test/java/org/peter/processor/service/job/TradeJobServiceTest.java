@@ -0,0 +1,198 @@
+package org.peter.processor.service.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.peter.processor.exception.InputTooLargeException;
+import org.peter.processor.exception.JobNotFinishedException;
+import org.peter.processor.exception.JobNotFoundException;
+import org.peter.processor.exception.UnsupportedFormatException;
+import org.peter.processor.io.ProcessType;
+import org.peter.processor.io.importer.RowIssue;
+import org.peter.processor.service.RejectionReport;
+import org.peter.processor.service.TradeProcessor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TradeJobServiceTest {
+    private static final String CSV_MIME_TYPE = "text/csv";
+    private static final String INPUT = "date,productId,currency,price\n20240101,1,USD,10\n";
+
+    @TempDir
+    private Path storageDir;
+
+    @Mock
+    private TradeProcessor tradeProcessor;
+
+    private TradeJobService tradeJobService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tradeJobService = newService();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        tradeJobService.shutdown();
+    }
+
+    @Test
+    void testSubmit_ProcessesStoredInputInBackground() throws Exception {
+        doAnswer(invocation -> {
+            Path input = invocation.getArgument(0);
+            OutputStream output = invocation.getArgument(3);
+            RejectionReport report = invocation.getArgument(4);
+            output.write(Files.readString(input).toUpperCase().getBytes(StandardCharsets.UTF_8));
+            report.addRowsParsed(2);
+            report.addRowsWritten(1);
+            report.onIssue(RowIssue.INVALID_DATE, "bad-date");
+            return null;
+        }).when(tradeProcessor).processTrades(any(Path.class), eq(CSV_MIME_TYPE), eq(CSV_MIME_TYPE), any(OutputStream.class), any());
+
+        JobStatus submitted = tradeJobService.submit(input(INPUT), CSV_MIME_TYPE, CSV_MIME_TYPE);
+        JobStatus finished = awaitFinished(submitted.id());
+
+        assertEquals(JobState.SUCCEEDED, finished.state());
+        assertEquals(INPUT.length(), finished.inputBytes());
+        assertEquals(2, finished.rowsParsed());
+        assertEquals(1, finished.rowsWritten());
+        assertEquals(1, finished.rowsRejected());
+        assertEquals(INPUT.toUpperCase(), Files.readString(tradeJobService.result(submitted.id())));
+        assertFalse(Files.exists(storageDir.resolve(submitted.id()).resolve(TradeJob.INPUT_FILE)));
+    }
+
+    @Test
+    void testSubmit_StatusWriteFailureDoesNotStrandJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+                .doNothing()
+                .when(tradeProcessor).processTrades(any(Path.class), eq(CSV_MIME_TYPE), eq(CSV_MIME_TYPE), any(OutputStream.class), any());
+        String runningId = tradeJobService.submit(input(INPUT), CSV_MIME_TYPE, CSV_MIME_TYPE).id();
+        String queuedId = tradeJobService.submit(input(INPUT), CSV_MIME_TYPE, CSV_MIME_TYPE).id();
+
+        // A non-empty directory in place of the status file makes every later status write fail
+        Path statusFile = storageDir.resolve(queuedId).resolve(TradeJob.STATUS_FILE);
+        Files.delete(statusFile);
+        Files.createDirectories(statusFile.resolve("blocked"));
+        release.countDown();
+
+        assertEquals(JobState.SUCCEEDED, awaitFinished(runningId).state());
+        assertEquals(JobState.SUCCEEDED, awaitFinished(queuedId).state());
+    }
+
+    @Test
+    void testSubmit_ProcessingErrorFailsJob() throws Exception {
+        doThrow(new RuntimeException("Error processing trades"))
+                .when(tradeProcessor).processTrades(any(Path.class), eq(CSV_MIME_TYPE), eq(CSV_MIME_TYPE), any(OutputStream.class), any());
+
+        JobStatus submitted = tradeJobService.submit(input(INPUT), CSV_MIME_TYPE, CSV_MIME_TYPE);
+        JobStatus finished = awaitFinished(submitted.id());
+
+        assertEquals(JobState.FAILED, finished.state());
+        assertEquals("Error processing trades", finished.error());
+        assertThrows(JobNotFinishedException.class, () -> tradeJobService.result(submitted.id()));
+    }
+
+    @Test
+    void testSubmit_InputTooLarge_IsRejectedAndCleanedUp() throws Exception {
+        tradeJobService.shutdown();
+        tradeJobService = new TradeJobService(storageDir, DataSize.ofBytes(10), 1, 5, tradeProcessor);
+
+        assertThrows(InputTooLargeException.class, () -> tradeJobService.submit(input(INPUT), CSV_MIME_TYPE, CSV_MIME_TYPE));
+
+        try (var files = Files.list(storageDir)) {
+            assertEquals(0, files.count());
+        }
+        verifyNoInteractions(tradeProcessor);
+    }
+
+    @Test
+    void testSubmit_UnsupportedFormat_IsRejected() {
+        assertThrows(UnsupportedFormatException.class, () -> tradeJobService.submit(input(INPUT), "text/plain", CSV_MIME_TYPE));
+    }
+
+    @Test
+    void testSubmit_ExportOnlyInputFormat_IsRejected() {
+        String arrowType = ProcessType.ARROW.getType();
+
+        assertThrows(UnsupportedFormatException.class, () -> tradeJobService.submit(input(INPUT), arrowType, CSV_MIME_TYPE));
+        verifyNoInteractions(tradeProcessor);
+    }
+
+    @Test
+    void testDelete_RunningJobIsKept_FinishedJobIsRemoved() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+                .when(tradeProcessor).processTrades(any(Path.class), eq(CSV_MIME_TYPE), eq(CSV_MIME_TYPE), any(OutputStream.class), any());
+
+        String id = tradeJobService.submit(input(INPUT), CSV_MIME_TYPE, CSV_MIME_TYPE).id();
+        assertThrows(JobNotFinishedException.class, () -> tradeJobService.delete(id));
+
+        release.countDown();
+        awaitFinished(id);
+        tradeJobService.delete(id);
+
+        assertThrows(JobNotFoundException.class, () -> tradeJobService.status(id));
+        assertFalse(Files.exists(storageDir.resolve(id)));
+    }
+
+    @Test
+    void testRestoreJobs_KeepsFinishedJobsAndFailsInterruptedOnes() throws Exception {
+        String finishedId = tradeJobService.submit(input(INPUT), CSV_MIME_TYPE, CSV_MIME_TYPE).id();
+        awaitFinished(finishedId);
+
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+                .when(tradeProcessor).processTrades(any(Path.class), eq(CSV_MIME_TYPE), eq(CSV_MIME_TYPE), any(OutputStream.class), any());
+        String runningId = tradeJobService.submit(input(INPUT), CSV_MIME_TYPE, CSV_MIME_TYPE).id();
+
+        TradeJobService restarted = newService(); // Sees the running job as it was persisted at that point
+        try {
+            assertEquals(JobState.SUCCEEDED, restarted.status(finishedId).state());
+            assertNotNull(restarted.result(finishedId));
+            assertEquals(JobState.FAILED, restarted.status(runningId).state());
+            assertEquals("Interrupted by a restart", restarted.status(runningId).error());
+        } finally {
+            release.countDown();
+            restarted.shutdown();
+        }
+    }
+
+    private TradeJobService newService() throws IOException {
+        TradeJobService service = new TradeJobService(storageDir, DataSize.ofMegabytes(1), 1, 5, tradeProcessor);
+        service.restoreJobs();
+        return service;
+    }
+
+    private JobStatus awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        JobStatus status = tradeJobService.status(id);
+        while (!status.state().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = tradeJobService.status(id);
+        }
+        return status;
+    }
+
+    private static ByteArrayInputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}